@@ -1,10 +1,5 @@
 package qirkat;
 
-import java.util.ArrayList;
-
-
-import static qirkat.PieceColor.*;
-
 /**
  * A Player that computes its own moves.
  *
@@ -13,29 +8,21 @@ import static qirkat.PieceColor.*;
 class AI extends Player {
 
     /**
-     * Maximum minimax search depth before going to static evaluation.
-     */
-    private static final int MAX_DEPTH = 5;
-    /**
-     * A position magnitude indicating a win (for white if positive, black
-     * if negative).
-     */
-    private static final int WINNING_VALUE = Integer.MAX_VALUE - 1;
-    /**
-     * A magnitude greater than a normal value.
-     */
-    private static final int INFTY = Integer.MAX_VALUE;
-    /**
-     * The move found by the last call to one of the ...FindMove methods
-     * below.
+     * A new AI for GAME that will play MYCOLOR.
      */
-    private Move _lastFoundMove;
+    AI(Game game, PieceColor myColor) {
+        this(game, myColor, false);
+    }
 
     /**
-     * A new AI for GAME that will play MYCOLOR.
+     * A new AI for GAME that will play MYCOLOR, searching each iteration
+     * by MTD(f) iff MTDF.
      */
-    AI(Game game, PieceColor myColor) {
+    AI(Game game, PieceColor myColor, boolean mtdf) {
         super(game, myColor);
+        _table = new TranspositionTable(game.hashSize());
+        _evaluator = game.evaluator();
+        _mtdf = mtdf;
     }
 
     @Override
@@ -43,119 +30,298 @@ class AI extends Player {
         Main.startTiming();
         Move move = findMove();
         Main.endTiming();
-
-
+        if (_fromBook) {
+            Main.reportTiming("[%s: book move]%n", _mtdf ? "mtdf" : "ab");
+        } else {
+            Main.reportTiming("[%s: depth %d; %d nodes; %d root searches; "
+                              + "%d threads; hash hits %.1f%% of %d "
+                              + "probes%s]%n",
+                              _mtdf ? "mtdf" : "ab", _depth, _nodes,
+                              _passes, _threads,
+                              _probes == 0 ? 0.0 : 100.0 * _hits / _probes,
+                              _probes, _ponderHit ? "; ponder hit" : "");
+        }
+        startPondering(move);
         return move;
     }
 
+    @Override
+    void endGame() {
+        stopPondering();
+    }
+
     /**
      * Return a move for me from the current position, assuming there
-     * is a move.
+     * is a move.  The search deepens iteratively, one ply at a time,
+     * until the game's time budget per move runs out, and returns the
+     * best move of the last iteration that finished.  Each iteration
+     * leaves its best moves in the transposition table, where the next
+     * one finds and searches them first.
+     *
+     * With more than one thread, the extra threads run helper Searchers
+     * on the same position at the same time ("lazy SMP").  They share
+     * the transposition table with the main Searcher and start at
+     * alternating depths, so that they fill the table with results that
+     * the others can use.  The move played is that of the Searcher that
+     * completed the deepest iteration.
+     *
+     * No search is needed when the game's opening book has moves for
+     * the position; the best of them is played or, if the game asks for
+     * it, one chosen at random in proportion to their weights.  Nor is
+     * one needed when I have been pondering the position (see
+     * startPondering); the Searchers doing so are then given the usual
+     * budget, counted from when they began, and so stop at once if my
+     * opponent took longer than that to move.
      */
     private Move findMove() {
-        Board b = new Board(board());
-        if (myColor() == WHITE) {
-            findMove(b, MAX_DEPTH, true, 1, -INFTY, INFTY);
-        } else {
-            findMove(b, MAX_DEPTH, true, -1, -INFTY, INFTY);
+        Board b = board();
+        long start = System.currentTimeMillis();
+        long budget = game().moveTime();
+        _depth = 0;
+        _nodes = _passes = _probes = _hits = 0;
+        _threads = 1;
+        _fromBook = _ponderHit = false;
+
+        if (_pondering != null && _pondered.equals(b)) {
+            _ponderHit = true;
+            for (Searcher s : _pondering) {
+                s.setBudget(budget);
+            }
+            Searcher[] searchers = _pondering;
+            Thread[] threads = _ponderThreads;
+            _pondering = null;
+            _threads = searchers.length;
+            try {
+                threads[0].join();
+            } catch (InterruptedException e) {
+                searchers[0].stop();
+            }
+            return finishSearch(searchers, threads);
+        }
+        stopPondering();
+
+        _table.newSearch();
+        long[] moves = new long[Board.MAX_MOVES];
+        if (b.getMoves(moves) == 1) {
+            return MoveCode.toMove(moves[0]);
+        }
+        OpeningBook book = game().book();
+        if (book != null) {
+            int[] weights = new int[Board.MAX_MOVES];
+            int n = book.lookup(b, moves, weights);
+            if (n > 0) {
+                _fromBook = true;
+                return MoveCode.toMove(moves[bookChoice(weights, n)]);
+            }
+        }
+
+        Searcher[] searchers = newSearchers(b, start, budget);
+        _threads = searchers.length;
+        Thread[] threads = startSearchers(searchers, 1, "qirkat-helper-");
+        searchers[0].run();
+        return finishSearch(searchers, threads);
+    }
+
+    /**
+     * Return new Searchers, one for each thread the game allows, for
+     * BOARD, allowed BUDGET milliseconds from START.
+     */
+    private Searcher[] newSearchers(Board board, long start, long budget) {
+        Searcher[] searchers = new Searcher[Math.max(1, game().threads())];
+        for (int i = 0; i < searchers.length; i += 1) {
+            searchers[i] = new Searcher(board, _table, 1 + i % 2);
+            searchers[i].setClock(start, budget);
+            searchers[i].setMtdf(_mtdf);
+            searchers[i].setEvaluator(_evaluator);
+            searchers[i].setTablebase(game().tablebase());
+            searchers[i].setReductions(game().reductionDepth(),
+                                       game().reductionMoves());
+            searchers[i].setFutility(game().futilityDepth(),
+                                     game().futilityMargin());
         }
-        return _lastFoundMove;
+        return searchers;
     }
 
     /**
-     * Find a move from position BOARD and return its value, recording
-     * the move found in _lastFoundMove iff SAVEMOVE. The move
-     * should have maximal value or have value > BETA if SENSE==1,
-     * and minimal value or value < ALPHA if SENSE==-1. Searches up to
-     * DEPTH levels.  Searching at level 0 simply returns a static estimate
-     * of the board value and does not set _lastMoveFound.
-     * Reference was from the wikipedia.
-     */
-    private int findMove(Board board, int depth, boolean saveMove, int sense,
-                         int alpha, int beta) {
-        Move best;
-        best = null;
-        if ((depth == 0) || board.gameOver()) {
-            return staticScore(board);
-        }
-        ArrayList<Move> possibleMoves = board.getMoves();
-        ArrayList<Move> filteredMoves = filterColorMoves(
-                possibleMoves, board);
-        int v;
-        int score;
-        if (sense == 1) {
-            v = -INFTY;
-            for (Move cur : filteredMoves) {
-                Board temp = new Board(board);
-                temp.makeMove(cur);
-                score = findMove(temp, depth - 1, false, sense * -1,
-                        alpha, beta);
-                v = Math.max(score, v);
-                alpha = Math.max(alpha, v);
-                if (score == v) {
-                    best = cur;
+     * Start SEARCHERS[FIRST ..] running, each on its own daemon thread
+     * named NAME followed by its index, and return the threads, indexed
+     * likewise.
+     */
+    private Thread[] startSearchers(Searcher[] searchers, int first,
+                                    String name) {
+        Thread[] threads = new Thread[searchers.length];
+        for (int i = first; i < searchers.length; i += 1) {
+            threads[i] = new Thread(searchers[i], name + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        return threads;
+    }
+
+    /**
+     * Stop SEARCHERS, which have been running on THREADS (or, where
+     * THREADS has null, have finished), wait for them, record their
+     * statistics, and return the best move of the one that completed
+     * the deepest iteration, preferring SEARCHERS[0].
+     */
+    private Move finishSearch(Searcher[] searchers, Thread[] threads) {
+        for (Searcher s : searchers) {
+            s.stop();
+        }
+        for (int i = 0; i < searchers.length; i += 1) {
+            try {
+                if (threads[i] != null) {
+                    threads[i].join();
                 }
-                if (beta <= alpha) {
-                    break;
+            } catch (InterruptedException e) {
+                if (i > 0) {
+                    searchers[i] = null;
                 }
             }
-        } else {
-            v = INFTY;
-            for (Move cur : filteredMoves) {
-                Board temp = new Board(board);
-                temp.makeMove(cur);
-                score = findMove(temp, depth - 1, false, sense * -1,
-                        alpha, beta);
-                v = Math.min(score, v);
-                beta = Math.min(beta, v);
-                if (score == v) {
-                    best = cur;
-                }
-                if (beta <= alpha) {
-                    break;
-                }
+        }
+
+        Searcher chosen = searchers[0];
+        for (Searcher s : searchers) {
+            if (s == null) {
+                continue;
+            }
+            if (s.depth() > chosen.depth()
+                && s.bestMove() != MoveCode.NONE) {
+                chosen = s;
             }
+            _nodes += s.nodes();
+            _passes += s.passes();
+            _probes += s.probes();
+            _hits += s.hits();
+        }
+        _depth = chosen.depth();
+        return MoveCode.toMove(chosen.bestMove());
+    }
+
+    /**
+     * If the game asks AIs to ponder and my opponent is a manual
+     * player, start searching, in the background, the position that
+     * MOVE (which I am about to play) and my opponent's expected reply
+     * lead to.  The reply expected is the best move recorded for it in
+     * the transposition table by my last search.  The Searchers have no
+     * time limit until findMove gives them one, or stops them if the
+     * opponent plays something else.
+     */
+    private void startPondering(Move move) {
+        stopPondering();
+        if (!game().ponder() || !game().manual(myColor().opposite())) {
+            return;
+        }
+        Board b = new Board(board());
+        long[] moves = new long[Board.MAX_MOVES];
+        b.makeTrustedMove(move);
+        long reply = _table.probeMove(b.key());
+        if (reply == MoveCode.NONE || !b.isLegal(reply)) {
+            return;
         }
-        if (saveMove) {
-            _lastFoundMove = best;
+        b.make(reply);
+        if (b.getMoves(moves) == 0) {
+            return;
         }
-        return v;
+        _table.newSearch();
+        _pondered = b;
+        _ponderStart = System.currentTimeMillis();
+        _pondering = newSearchers(b, _ponderStart, Long.MAX_VALUE);
+        _ponderThreads = startSearchers(_pondering, 0, "qirkat-ponder-");
     }
 
     /**
-     * Return a heuristic value for BOARD.
-     * @param cur ArrayList<Move>
-     * @param board Board
-     * @return ArrayList<Move>
+     * Stop any pondering (see startPondering) and wait for its
+     * Searchers to finish.
      */
-    private ArrayList<Move> filterColorMoves(ArrayList<Move> cur, Board board) {
-        ArrayList<Move> result = new ArrayList<>();
-        PieceColor temp = board.whoseMove();
-        for (Move i : cur) {
-            int fromIndex = i.fromIndex();
-            PieceColor curColor = board.get(fromIndex);
-            if (curColor.equals(temp)) {
-                result.add(i);
+    private void stopPondering() {
+        if (_pondering == null) {
+            return;
+        }
+        for (Searcher s : _pondering) {
+            s.stop();
+        }
+        for (Thread t : _ponderThreads) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                break;
             }
         }
-        return result;
+        _pondering = null;
+        _ponderThreads = null;
     }
 
-
     /**
-     * Return a heuristic value for BOARD.
+     * Return the index of the book move to play, given the weights,
+     * WEIGHTS[0 .. N-1], of the N book moves, best first.
      */
-    private int staticScore(Board board) {
-        int result = 0;
-        int result2 = 0;
-        for (int i = 0; i < Move.MAX_INDEX; i++) {
-            PieceColor cur = board.get(i);
-            if (cur.equals(WHITE)) {
-                result = result + 1;
-            } else if (cur.equals(BLACK)) {
-                result2 = result2 + 1;
-            }
+    private int bookChoice(int[] weights, int n) {
+        if (!game().bookRandom()) {
+            return 0;
+        }
+        int total = 0;
+        for (int i = 0; i < n; i += 1) {
+            total += weights[i];
         }
-        return (result - result2);
+        int r = game().nextRandom(total);
+        int i;
+        for (i = 0; r >= weights[i]; i += 1) {
+            r -= weights[i];
+        }
+        return i;
     }
+
+    /**
+     * Transposition table shared by all my searches.
+     */
+    private final TranspositionTable _table;
+    /**
+     * The evaluation function used by my searches, chosen by the game
+     * when I was created.
+     */
+    private final Evaluator _evaluator;
+    /**
+     * True iff my iterations are searched by MTD(f).
+     */
+    private final boolean _mtdf;
+    /**
+     * True iff my last move came from the opening book.
+     */
+    private boolean _fromBook;
+    /**
+     * True iff I had been pondering the position of my last move.
+     */
+    private boolean _ponderHit;
+    /**
+     * Searchers pondering the position _pondered, and the threads they
+     * run on, or null if I am not pondering.
+     */
+    private Searcher[] _pondering;
+    /**
+     * Threads running the Searchers in _pondering.
+     */
+    private Thread[] _ponderThreads;
+    /**
+     * The position I am pondering.
+     */
+    private Board _pondered;
+    /**
+     * Time (as from System.currentTimeMillis) at which pondering began.
+     */
+    private long _ponderStart;
+    /**
+     * Depth of the last completed iteration of the last search.
+     */
+    private int _depth;
+    /**
+     * Number of threads used by the last search.
+     */
+    private int _threads;
+    /**
+     * Statistics for the last search, summed over all its Searchers:
+     * positions visited, searches of the root, and transposition-table
+     * probes and hits.
+     */
+    private long _nodes, _passes, _probes, _hits;
 }
@@ -1,5 +1,6 @@
 package qirkat;
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.Observer;
 import java.util.ArrayList;
 import java.util.Observable;
@@ -8,6 +9,7 @@ import java.util.Formatter;
 
 import static qirkat.PieceColor.*;
 import static qirkat.Move.*;
+import static qirkat.Geometry.*;
 
 /** A Qirkat board.   The squares are labeled by column (a char value between
  *  'a' and 'e') and row (a char value between '1' and '5'.
@@ -24,14 +26,7 @@ class Board extends Observable {
 
     /** A new, cleared board at the start of the game. */
     Board() {
-        tiles = new ArrayList<>();
         clear();
-        for (int i = 0; i <= MAX_INDEX; i++) {
-            ArrayList<Integer>  posMoves = possibleMovesGen(i);
-            tiles.set(i, new Tile(0, posMoves));
-        }
-        setPieces("  w w w w w\n  w w w w w\n  "
-                + "b b - w w\n  b b b b b\n  b b b b b", WHITE);
     }
 
     /** A copy of B. */
@@ -45,44 +40,8 @@ class Board extends Observable {
      * */
     ArrayList<Integer> possibleMovesGen(int n) {
         ArrayList<Integer> result = new ArrayList<>();
-        if ((n % 2) == 0) {
-            if (!(n > (10 + 9))) {
-                result.add(n + 5);
-                if (!(((n + 1) % 5) == 0)) {
-                    result.add(n + 6);
-                }
-                if (!(((n % 5) == 0))) {
-                    result.add(n + 4);
-                }
-            }
-            if (!(((n + 1) % 5) == 0)) {
-                result.add(n + 1);
-                if (!(n < 5)) {
-                    result.add(n - 4);
-                }
-            }
-            if (!(((n % 5) == 0))) {
-                result.add(n - 1);
-                if (!(n < 5)) {
-                    result.add(n - 6);
-                }
-            }
-            if (!(n < 5)) {
-                result.add(n - 5);
-            }
-        } else {
-            if (!(n > (10 + 9))) {
-                result.add(n + 5);
-            }
-            if (!(((n + 1) % 5) == 0)) {
-                result.add(n + 1);
-            }
-            if (!(((n % 5) == 0))) {
-                result.add(n - 1);
-            }
-            if (!(n < 5)) {
-                result.add(n - 5);
-            }
+        for (int k : Geometry.NEIGHBORS[n]) {
+            result.add(k);
         }
         return result;
     }
@@ -96,13 +55,8 @@ class Board extends Observable {
     /** Clear me to my starting state, with pieces in their initial
      *  positions. */
     void clear() {
-        _whoseMove = WHITE;
+        setWhoseMove(WHITE);
         _gameOver = false;
-        tiles = new ArrayList<>();
-        for (int i = 0; i <= MAX_INDEX; i++) {
-            ArrayList<Integer>  posMoves = possibleMovesGen(i);
-            tiles.add(new Tile(0, posMoves));
-        }
         setPieces("  w w w w w\n  w w w w w\n  "
                 + "b b - w w\n  b b b b b\n  b b b b b", whoseMove());
         setChanged();
@@ -116,20 +70,18 @@ class Board extends Observable {
 
     /** Copy B into me. */
     private void internalCopy(Board b) {
-        this.tiles = new ArrayList<>();
-        for (int i = 0; i < b.tiles.size(); i++) {
-            Tile fromTile = b.tiles.get(i);
-            ArrayList<Integer> newPossibleMoves = new ArrayList<>();
-            for (int j : fromTile.possibleMoves()) {
-                newPossibleMoves.add(j);
-            }
-            Tile newTile =  new Tile(fromTile.direction(),
-                    newPossibleMoves);
-            newTile.setColor(fromTile.getColor());
-            this.tiles.add(newTile);
-        }
+        _white = b._white;
+        _black = b._black;
+        _left = b._left;
+        _right = b._right;
         _whoseMove = b._whoseMove;
         _gameOver = b._gameOver;
+        _key = b._key;
+        _evaluator = b._evaluator;
+        _incremental = b._incremental;
+        _jumpers = b._jumpers;
+        _jumpersKnown = b._jumpersKnown;
+        clearUndo();
     }
 
     /** Set _gameover.
@@ -157,13 +109,13 @@ class Board extends Observable {
         for (int k = 0; k < str.length(); k += 1) {
             switch (str.charAt(k)) {
             case '-':
-                set(k, EMPTY);
+                set(k, EMPTY, 0);
                 break;
             case 'b': case 'B':
-                set(k, BLACK);
+                set(k, BLACK, 0);
                 break;
             case 'w': case 'W':
-                set(k, WHITE);
+                set(k, WHITE, 0);
                 break;
             default:
                 break;
@@ -171,13 +123,44 @@ class Board extends Observable {
         }
 
         setWhoseMove(nextMove);
-
-
+        clearUndo();
 
         setChanged();
         notifyObservers();
     }
 
+    /** Set me to the position in which WHITE and BLACK are the sets of
+     *  squares (as bit masks) holding white and black pieces, LEFT and
+     *  RIGHT the sets of those whose last move was leftward or rightward,
+     *  and NEXTMOVE is to move.  Unlike setPieces, does not notify
+     *  observers, so that it is cheap enough to use on every position of
+     *  a large enumeration. */
+    void setPosition(int white, int black, int left, int right,
+                     PieceColor nextMove) {
+        assert (white & black) == 0
+            && ((left | right) & ~(white | black)) == 0;
+        for (int k = 0; k <= MAX_INDEX; k += 1) {
+            int bit = 1 << k;
+            if ((white & bit) != 0) {
+                set(k, WHITE, direction(bit, left, right));
+            } else if ((black & bit) != 0) {
+                set(k, BLACK, direction(bit, left, right));
+            } else {
+                set(k, EMPTY, 0);
+            }
+        }
+        setWhoseMove(nextMove);
+        _gameOver = false;
+        clearUndo();
+    }
+
+    /** Return the direction (as for direction(int)) of the square whose
+     *  bit is BIT, given the sets of squares LEFT and RIGHT of pieces
+     *  whose last moves were leftward and rightward. */
+    private static int direction(int bit, int left, int right) {
+        return (right & bit) != 0 ? 1 : (left & bit) != 0 ? -1 : 0;
+    }
+
     /** Return true iff the game is over: i.e., if the current player has
      *  no moves. */
     boolean gameOver() {
@@ -194,7 +177,29 @@ class Board extends Observable {
     /** Return the current contents of the square at linearized index K. */
     PieceColor get(int k) {
         assert validSquare(k);
-        return tiles.get(k).getColor();
+        int bit = 1 << k;
+        if ((_white & bit) != 0) {
+            return WHITE;
+        } else if ((_black & bit) != 0) {
+            return BLACK;
+        } else {
+            return EMPTY;
+        }
+    }
+
+    /** Return the horizontal direction of the piece at linearized index K:
+     *  1 if its last move was to the right, -1 if to the left, and 0
+     *  otherwise (or if the square is empty). */
+    int direction(int k) {
+        assert validSquare(k);
+        int bit = 1 << k;
+        if ((_right & bit) != 0) {
+            return 1;
+        } else if ((_left & bit) != 0) {
+            return -1;
+        } else {
+            return 0;
+        }
     }
 
     /** Set get(C, R) to V, where 'a' <= C <= 'e', and
@@ -207,8 +212,34 @@ class Board extends Observable {
     /** Set get(K) to V, where K is the linearized index of a square. */
     private void set(int k, PieceColor v) {
         assert validSquare(k);
-        tiles.get(k).setColor(v);
-
+        int bit = 1 << k;
+        _key ^= squareKey(k);
+        _jumpersKnown = false;
+        if (_evaluator != null) {
+            if ((_white & bit) != 0) {
+                _incremental -= _evaluator.squareWeight(WHITE, k);
+            } else if ((_black & bit) != 0) {
+                _incremental -= _evaluator.squareWeight(BLACK, k);
+            }
+            if (v.isPiece()) {
+                _incremental += _evaluator.squareWeight(v, k);
+            }
+        }
+        _white &= ~bit;
+        _black &= ~bit;
+        switch (v) {
+        case WHITE:
+            _white |= bit;
+            break;
+        case BLACK:
+            _black |= bit;
+            break;
+        default:
+            _left &= ~bit;
+            _right &= ~bit;
+            break;
+        }
+        _key ^= squareKey(k);
     }
 
     /** Set get(K) to V, where K is the linearized index of a square.
@@ -218,10 +249,91 @@ class Board extends Observable {
      *  @param v PieceColor
      *  */
     private void set(int k, PieceColor v, int dir) {
-        assert validSquare(k);
-        tiles.get(k).setColor(v);
-        tiles.get(k).setDirection(dir);
+        set(k, v);
+        int bit = 1 << k;
+        _key ^= squareKey(k);
+        _left &= ~bit;
+        _right &= ~bit;
+        if (v != EMPTY) {
+            if (dir > 0) {
+                _right |= bit;
+            } else if (dir < 0) {
+                _left |= bit;
+            }
+        }
+        _key ^= squareKey(k);
+    }
 
+    /** Return the Zobrist code for the current contents and direction of
+     *  square K: the XOR of the codes for its piece and for its
+     *  direction. */
+    private long squareKey(int k) {
+        int bit = 1 << k;
+        long result;
+        if ((_white & bit) != 0) {
+            result = ZOBRIST_WHITE[k];
+        } else if ((_black & bit) != 0) {
+            result = ZOBRIST_BLACK[k];
+        } else {
+            return 0;
+        }
+        if ((_left & bit) != 0) {
+            result ^= ZOBRIST_LEFT[k];
+        } else if ((_right & bit) != 0) {
+            result ^= ZOBRIST_RIGHT[k];
+        }
+        return result;
+    }
+
+    /** Return a 64-bit Zobrist key for the current position, covering
+     *  the pieces, their directions, and whose move it is.  Equal
+     *  positions have equal keys; unequal ones almost never do. */
+    long key() {
+        return _key;
+    }
+
+    /** Return the set of squares (as a bit mask) occupied by pieces of
+     *  color COLOR. */
+    int pieces(PieceColor color) {
+        switch (color) {
+        case WHITE:
+            return _white;
+        case BLACK:
+            return _black;
+        default:
+            return ~(_white | _black) & ALL;
+        }
+    }
+
+    /** Install EVALUATOR (which may be null, for none) as the one whose
+     *  incremental term (see incremental) I keep up to date.  Copies of
+     *  me have the same evaluator installed. */
+    void setEvaluator(Evaluator evaluator) {
+        _evaluator = evaluator;
+        _incremental = evaluator == null ? 0 : sumWeights(evaluator);
+    }
+
+    /** Return the incremental term of EVALUATOR for my position: the sum
+     *  of its squareWeights over the pieces on the board.  Takes constant
+     *  time if EVALUATOR is the one installed by setEvaluator. */
+    int incremental(Evaluator evaluator) {
+        return evaluator == _evaluator ? _incremental
+            : sumWeights(evaluator);
+    }
+
+    /** Return the sum of EVALUATOR's squareWeights over the pieces on
+     *  the board, computed from scratch. */
+    private int sumWeights(Evaluator evaluator) {
+        int result = 0;
+        for (int m = _white; m != 0; m &= m - 1) {
+            result += evaluator.squareWeight(WHITE,
+                                             Integer.numberOfTrailingZeros(m));
+        }
+        for (int m = _black; m != 0; m &= m - 1) {
+            result += evaluator.squareWeight(BLACK,
+                                             Integer.numberOfTrailingZeros(m));
+        }
+        return result;
     }
 
     /** Return true iff cur MOV is legal on the current board.
@@ -231,58 +343,37 @@ class Board extends Observable {
     boolean legalMoveHelper(Move mov) {
         int from = mov.fromIndex();
         int to = mov.toIndex();
-        Tile fromTile = tiles.get(from);
         if (jumpPossible()) {
             return false;
         }
-        if (!fromTile.possibleMoves().contains(mov.toIndex())) {
+        if (!contains(NEIGHBOR_MASK[from], to)) {
             return false;
         }
-        if (fromTile.direction() != 0) {
-            if (mov.isLeftMove() || mov.isRightMove()) {
-                ArrayList<Integer> posDirMoves =
-                        fromTile.possDirMoves(from);
-                if (!posDirMoves.contains(to)) {
-                    return false;
-                }
-            }
+        int dir = direction(from);
+        if ((dir > 0 && mov.isLeftMove()) || (dir < 0 && mov.isRightMove())) {
+            return false;
         }
         if (!get(to).equals(EMPTY)) {
             return false;
         }
-        if (mov.isRightMove()) {
-            if ((from > (10 + 9)) && get(from).equals(WHITE)) {
-                return false;
-            }
-            if ((from < 5) && get(from).equals(BLACK)) {
-                return false;
-            }
-        }
-        if (mov.isLeftMove()) {
-            if ((from > (10 + 9)) && get(from).equals(WHITE)) {
+        PieceColor mover = get(from);
+        if (contains(SIDEWAYS[from], to)) {
+            if (mover == WHITE && contains(TOP_ROW, from)) {
                 return false;
             }
-            if ((from < 5) && get(from).equals(BLACK)) {
+            if (mover == BLACK && contains(BOTTOM_ROW, from)) {
                 return false;
             }
         }
-        if (get(from).equals(BLACK)) {
-            ArrayList<Integer> upward = fromTile.upwardMovs(from);
-            if (upward.contains(to)) {
-                return false;
-            }
+        if (mover == BLACK && contains(UPWARD[from], to)) {
+            return false;
         }
-        if (get(from).equals(WHITE)) {
-            ArrayList<Integer> downward = fromTile.downwardMovs(from);
-            if (downward.contains(to)) {
-                return false;
-            }
+        if (mover == WHITE && contains(DOWNWARD[from], to)) {
+            return false;
         }
         return true;
     }
 
-
-
     /** Return true iff MOV is legal on the current board.
      * @param mov Move
      * @return boolean
@@ -298,33 +389,36 @@ class Board extends Observable {
             return false;
         }
         if (mov.isJump()) {
-            PieceColor cur =  get(mov.fromIndex());
-            Board temp = new Board(this);
-            while (mov != null) {
-                int from = mov.fromIndex();
-                Tile fromTile = temp.tiles.get(from);
-                ArrayList<Integer> possJumps = fromTile.possibleJumps(from);
-                if (!possJumps.contains(mov.toIndex())) {
-                    return false;
-                }
-                PieceColor jumped = temp.get(mov.jumpedIndex());
-                if (!temp.get(mov.toIndex()).equals(EMPTY)) {
-                    return false;
-                }
-                if (!jumped.equals(cur.opposite())) {
-                    return false;
-                }
-                temp.tiles.get(mov.fromIndex()).setColor(EMPTY);
-                temp.tiles.get(mov.jumpedIndex()).setColor(EMPTY);
-                mov = mov.jumpTail();
-            }
-            return true;
+            return legalJump(mov);
         } else {
             return legalMoveHelper(mov);
         }
 
     }
 
+    /** Return true iff the jump MOV, whose first leg starts from a piece
+     *  of the player on move, is legal on the current board.  Follows
+     *  the legs of MOV, keeping track of the pieces captured so far in a
+     *  mask, rather than making them on a copy of the board. */
+    private boolean legalJump(Move mov) {
+        int opponent = _whoseMove == WHITE ? _black : _white;
+        int empty = ALL & ~(_white | _black) | (1 << mov.fromIndex());
+        int captured = 0;
+        for (; mov != null; mov = mov.jumpTail()) {
+            int from = mov.fromIndex(), to = mov.toIndex();
+            if (!contains(JUMP_MASK[from], to)) {
+                return false;
+            }
+            int over = jumped(from, to);
+            if (!contains(opponent & ~captured, over)
+                || !contains(empty | captured, to)) {
+                return false;
+            }
+            captured |= 1 << over;
+        }
+        return true;
+    }
+
     /** Return a list of all legal moves from the current position. */
     ArrayList<Move> getMoves() {
         ArrayList<Move> result = new ArrayList<>();
@@ -334,80 +428,187 @@ class Board extends Observable {
 
     /** Add all legal moves from the current position to MOVES. */
     void getMoves(ArrayList<Move> moves) {
+        long[] codes = new long[MAX_MOVES];
+        int n = getMoves(codes);
+        for (int i = 0; i < n; i += 1) {
+            moves.add(MoveCode.toMove(codes[i]));
+        }
+    }
+
+    /** Store the codes (see MoveCode) of all legal moves from the
+     *  current position into MOVES, in the same order as getMoves(),
+     *  and return their number.  Stops early, rather than overflowing,
+     *  if MOVES fills up. */
+    int getMoves(long[] moves) {
         if (gameOver()) {
-            return;
+            return 0;
         }
-        if (jumpPossible()) {
-            for (int k = 0; k <= MAX_INDEX; k += 1) {
-                getJumps(moves, k);
-            }
-        } else {
-            for (int k = 0; k <= MAX_INDEX; k += 1) {
-                getMoves(moves, k);
-            }
+        int n = getJumps(moves);
+        if (n == 0) {
+            n = getQuietMoves(moves);
         }
+        return n;
     }
 
-    /** Add all legal non-capturing moves from the position
-     *  with linearized index K to MOVES. */
-    private void getMoves(ArrayList<Move> moves, int k) {
-
-        ArrayList<Integer> posMovs = possibleMovesGen(k);
-        for (int i : posMovs) {
-            Move potentialAdd = move(col(k), row(k), col(i), row(i));
-            if (legalMove(potentialAdd)) {
-                moves.add(potentialAdd);
+    /** Store the codes of all captures for the player on move into
+     *  MOVES and return their number (0 if there are none), as for
+     *  getMoves(long[]).  Since captures are compulsory, these are all
+     *  the legal moves, if there are any. */
+    int getJumps(long[] moves) {
+        int n;
+        n = 0;
+        int jumpers = jumpers();
+        for (int k = 0; k <= MAX_INDEX && jumpers != 0; k += 1) {
+            if (contains(jumpers, k)) {
+                n = getJumps(moves, n, k);
             }
         }
+        return n;
     }
 
-    /** Add all legal captures from the position with linearized index K
-     *  to MOVES. */
-    private void getJumps(ArrayList<Move> moves, int k) {
-        Board newTemp = new Board();
-        newTemp.copy(this);
-
-        ArrayList<Move> result = contiJump(new ArrayList<Move>(), k, newTemp);
-        moves.addAll(result);
+    /** Store the codes of all non-capturing moves for the player on move
+     *  into MOVES and return their number, as for getMoves(long[]).
+     *  These are the legal moves if getJumps finds none. */
+    int getQuietMoves(long[] moves) {
+        int n;
+        n = 0;
+        int mine = _whoseMove == WHITE ? _white : _black;
+        for (int k = 0; k <= MAX_INDEX && n < moves.length; k += 1) {
+            if (!contains(mine, k)) {
+                continue;
+            }
+            int targets = quietTargets(k);
+            for (int i : NEIGHBORS[k]) {
+                if (contains(targets, i) && n < moves.length) {
+                    moves[n] = MoveCode.quiet(k, i);
+                    n += 1;
+                }
+            }
+        }
+        return n;
+    }
 
+    /** Return true iff CODE, which may be any long, is the code of one
+     *  of the moves that getMoves(long[]) returns for the current
+     *  position.  Checks CODE without generating the other moves. */
+    boolean isLegal(long code) {
+        if (gameOver() || code == MoveCode.NONE) {
+            return false;
+        }
+        int from = MoveCode.from(code), to = MoveCode.to(code);
+        int legs = MoveCode.legs(code);
+        if (legs == 0) {
+            return jumpers() == 0 && validSquare(from) && validSquare(to)
+                && code == MoveCode.quiet(from, to)
+                && contains(_whoseMove == WHITE ? _white : _black, from)
+                && contains(quietTargets(from), to);
+        }
+        if (!validSquare(from) || !contains(jumpers(), from)
+            || legs > MoveCode.MAX_LEGS) {
+            return false;
+        }
+        int opponent = _whoseMove == WHITE ? _black : _white;
+        int empty = ALL & ~(_white | _black) | (1 << from);
+        int captured = 0;
+        int sq = from;
+        long expected = MoveCode.quiet(from, from);
+        for (int i = 0; i < legs; i += 1) {
+            int d = MoveCode.legDirection(code, i);
+            int over = sq + DELTA[d], next = sq + 2 * DELTA[d];
+            if (!contains(JUMP_SOURCES[d], sq)
+                || !contains(opponent & ~captured, over)
+                || !contains(empty | captured, next)) {
+                return false;
+            }
+            captured |= 1 << over;
+            sq = next;
+            expected = MoveCode.extend(expected, sq);
+        }
+        if (code != expected) {
+            return false;
+        }
+        for (int i = 0; i < JUMPS[sq].length; i += 1) {
+            if (contains(opponent & ~captured, JUMPED[sq][i])
+                && contains(empty | captured, JUMPS[sq][i])) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    /** Concatenating all the possible moves.
-     * @param k int
-     * @param movs ArrayList<Move>
-     * @param temp Board
-     * @return ArrayList<Move>
-     *  */
-    ArrayList<Move> contiJump(ArrayList<Move> movs, int k, Board temp) {
-        ArrayList<Move> result = new ArrayList<>();
-        ArrayList<Integer> initJumps = tiles.get(k).possibleJumps(k);
-        for (int jump : initJumps) {
-            Move potentialAdd = move(col(k), row(k), col(jump), row(jump));
-            if (temp.legalMove(potentialAdd)) {
-                Board newTemp = new Board();
-                newTemp.copy(temp);
-                ArrayList<Move> newMovs = new ArrayList<>();
-                if (!movs.isEmpty()) {
-                    for (Move addingMov : movs) {
-                        Move newMov = IDENTITY.apply(addingMov);
-                        newMov = move(newMov, potentialAdd);
-                        newMovs.add(newMov);
-                    }
-                } else {
-                    newMovs.add(potentialAdd);
-                }
-                newTemp.makeMove(potentialAdd);
-                newTemp.setWhoseMove(newTemp.whoseMove().opposite());
-                newMovs = contiJump(newMovs, jump, newTemp);
-                result.addAll(newMovs);
+    /** Return the set of squares to which the piece at K, which must
+     *  belong to the player on move, may make a non-capturing move,
+     *  ignoring whether some capture is possible. */
+    private int quietTargets(int k) {
+        int result = NEIGHBOR_MASK[k] & ~(_white | _black);
+        if (contains(_white, k)) {
+            result &= ~DOWNWARD[k];
+            if (contains(TOP_ROW, k)) {
+                result &= ~SIDEWAYS[k];
+            }
+        } else {
+            result &= ~UPWARD[k];
+            if (contains(BOTTOM_ROW, k)) {
+                result &= ~SIDEWAYS[k];
             }
         }
-        if (result.isEmpty()) {
-            return movs;
+        if (contains(_right, k)) {
+            result &= ~LEFTWARD[k];
+        } else if (contains(_left, k)) {
+            result &= ~RIGHTWARD[k];
         }
         return result;
     }
 
+    /** Store the codes of all legal captures by the piece at K, which
+     *  must belong to the player on move, into MOVES, starting at index
+     *  N, and return the index following the last one stored.  Stops
+     *  early, rather than overflowing, if MOVES fills up.
+     *
+     *  Jumps are found depth first, one leg at a time.  The position
+     *  part-way through a jump is described by the original position
+     *  together with the set of squares captured so far (the jumping
+     *  piece having left K), so that taking back a leg when backing up is
+     *  a matter of popping the stack kept in the _jumpStack arrays.  A
+     *  jump is complete when it cannot be continued. */
+    private int getJumps(long[] moves, int n, int k) {
+        int opponent = _whoseMove == WHITE ? _black : _white;
+        int empty = ALL & ~(_white | _black) | (1 << k);
+        int top = 0;
+        _jumpStackSquare[0] = k;
+        _jumpStackNext[0] = 0;
+        _jumpStackCode[0] = MoveCode.quiet(k, k);
+        _jumpStackCaptured[0] = 0;
+        _jumpStackExtended[0] = false;
+        while (top >= 0) {
+            int sq = _jumpStackSquare[top];
+            int i = _jumpStackNext[top];
+            int captured = _jumpStackCaptured[top];
+            if (i == JUMPS[sq].length) {
+                if (top > 0 && !_jumpStackExtended[top] && n < moves.length) {
+                    moves[n] = _jumpStackCode[top];
+                    n += 1;
+                }
+                top -= 1;
+                continue;
+            }
+            _jumpStackNext[top] = i + 1;
+            int over = JUMPED[sq][i], to = JUMPS[sq][i];
+            if (contains(opponent & ~captured, over)
+                && contains(empty | captured, to)) {
+                _jumpStackExtended[top] = true;
+                top += 1;
+                _jumpStackSquare[top] = to;
+                _jumpStackNext[top] = 0;
+                _jumpStackCode[top] =
+                    MoveCode.extend(_jumpStackCode[top - 1], to);
+                _jumpStackCaptured[top] = captured | (1 << over);
+                _jumpStackExtended[top] = false;
+            }
+        }
+        return n;
+    }
+
     /** Return true iff MOV is a valid jump sequence on the current board.
      *  MOV must be a jump or null.  If ALLOWPARTIAL, allow jumps that
      *  could be continued and are valid as far as they go.  */
@@ -442,20 +643,44 @@ class Board extends Observable {
         if (!validSquare(k)) {
             return false;
         }
-        ArrayList<Move> result = new ArrayList<>();
-        getJumps(result, k);
-        return !(result.size() == 0);
-
+        return contains(jumpers(), k);
     }
 
     /** Return true iff a jump is possible from the current board. */
     boolean jumpPossible() {
-        for (int k = 0; k <= MAX_INDEX; k += 1) {
-            if (jumpPossible(k)) {
-                return true;
+        return jumpers() != 0;
+    }
+
+    /** Return the set of squares holding pieces of the player on move
+     *  that can capture.  The result is computed for all pieces at once
+     *  with a few bit operations per direction, and cached until the
+     *  position next changes. */
+    private int jumpers() {
+        if (!_jumpersKnown) {
+            int mine, opponent;
+            if (_whoseMove == WHITE) {
+                mine = _white;
+                opponent = _black;
+            } else {
+                mine = _black;
+                opponent = _white;
             }
+            int empty = ALL & ~(_white | _black);
+            int result = 0;
+            for (int d = 0; d < DIRECTIONS; d += 1) {
+                result |= mine & JUMP_SOURCES[d]
+                    & shift(opponent, DELTA[d]) & shift(empty, 2 * DELTA[d]);
+            }
+            _jumpers = result;
+            _jumpersKnown = true;
         }
-        return false;
+        return _jumpers;
+    }
+
+    /** Return MASK with each square K replaced by the square K + N, so
+     *  that square K of the result is square K + N of MASK. */
+    private static int shift(int mask, int n) {
+        return n >= 0 ? mask >>> n : mask << -n;
     }
 
     /** Return the color of the player who has the next move.  The
@@ -478,62 +703,114 @@ class Board extends Observable {
     /** Make the Move MOV on this Board, assuming it is legal. */
     void makeMove(Move mov) {
         assert legalMove(mov);
-        PieceColor cur = get(mov.fromIndex());
-        trackMoves.push(mov);
-        if (!mov.isJump()) {
-            if (mov.isRightMove()) {
-                set(mov.fromIndex(), EMPTY, 0);
-                set(mov.toIndex(), cur, 1);
-            } else if (mov.isLeftMove()) {
-                set(mov.fromIndex(), EMPTY, 0);
-                set(mov.toIndex(), cur, -1);
-            } else {
-                set(mov.fromIndex(), EMPTY, 0);
-                set(mov.toIndex(), cur);
-            }
-        } else {
-            while (mov != null) {
-                cur = get(mov.fromIndex());
-                set(mov.fromIndex(), EMPTY, 0);
-                set(mov.toIndex(), cur);
-                set(mov.jumpedIndex(), EMPTY, 0);
-                mov = mov.jumpTail();
-            }
-        }
+        makeTrustedMove(mov);
+    }
 
-        _whoseMove = _whoseMove.opposite();
+    /** Make the Move MOV, which must be one of those returned by
+     *  getMoves for the current position (as are those chosen by an AI),
+     *  on this Board without checking its legality again. */
+    void makeTrustedMove(Move mov) {
+        make(mov);
         setChanged();
         notifyObservers();
     }
 
     /** Make the Move MOV on this Board, not assuming it is legal. */
     void makeMoveSetup(Move mov) {
-        PieceColor cur = get(mov.fromIndex());
-        trackMoves.push(mov);
-        if (!mov.isJump()) {
-            if (mov.isRightMove()) {
-                set(mov.fromIndex(), EMPTY, 0);
-                set(mov.toIndex(), cur, 1);
-            } else if (mov.isLeftMove()) {
-                set(mov.fromIndex(), EMPTY, 0);
-                set(mov.toIndex(), cur, -1);
-            } else {
-                set(mov.fromIndex(), EMPTY, 0);
-                set(mov.toIndex(), cur);
-            }
-        } else {
-            while (mov != null) {
-                cur = get(mov.fromIndex());
-                set(mov.fromIndex(), EMPTY, 0);
-                set(mov.toIndex(), cur);
-                set(mov.jumpedIndex(), EMPTY, 0);
-                mov = mov.jumpTail();
+        makeTrustedMove(mov);
+    }
+
+    /** Make the Move MOV on this Board, assuming it is legal, and record
+     *  what is needed to unmake it exactly.  Unlike makeMove, does not
+     *  check legality or notify observers, so that a search may apply
+     *  and retract moves on a single Board without copying it. */
+    void make(Move mov) {
+        make(MoveCode.encode(mov));
+    }
+
+    /** Make the move whose move code is CODE, as for make(Move). */
+    void make(long code) {
+        if (_undoCount == _undoCodes.length) {
+            growUndo();
+        }
+        int u = _undoCount;
+        _undoCount += 1;
+        _undoCodes[u] = code;
+        _undoLeft[u] = _left;
+        _undoRight[u] = _right;
+        _undoWhoseMove[u] = _whoseMove;
+        _undoGameOver[u] = _gameOver;
+        _undoKey[u] = _key;
+        _undoIncremental[u] = _incremental;
+
+        int from = MoveCode.from(code), to = MoveCode.to(code);
+        PieceColor cur = get(from);
+        int captured = MoveCode.captured(code);
+        int dir;
+        dir = 0;
+        if (MoveCode.isJump(code)) {
+            for (int c = captured; c != 0; c &= c - 1) {
+                set(Integer.numberOfTrailingZeros(c), EMPTY, 0);
             }
+        } else if (contains(RIGHTWARD[from], to)) {
+            dir = 1;
+        } else if (contains(LEFTWARD[from], to)) {
+            dir = -1;
         }
+        set(from, EMPTY, 0);
+        set(to, cur, dir);
+        _undoCaptured[u] = captured;
 
         _whoseMove = _whoseMove.opposite();
-        setChanged();
-        notifyObservers();
+        _key ^= ZOBRIST_BLACK_TO_MOVE;
+        _jumpersKnown = false;
+    }
+
+    /** Unmake the last Move made by make (or makeMove), restoring the
+     *  position, including directions and whose move it is, exactly as
+     *  it was.  The moved piece's color is that of the piece now on its
+     *  destination, which need not be that of the player who was to
+     *  move (see makeMoveSetup).  Does not notify observers. */
+    void unmake() {
+        assert _undoCount > 0;
+        _undoCount -= 1;
+        int u = _undoCount;
+        long code = _undoCodes[u];
+        int to = 1 << MoveCode.to(code);
+        int moved = (1 << MoveCode.from(code)) ^ to;
+        if ((_white & to) != 0) {
+            _white ^= moved;
+            _black |= _undoCaptured[u];
+        } else {
+            _black ^= moved;
+            _white |= _undoCaptured[u];
+        }
+        _left = _undoLeft[u];
+        _right = _undoRight[u];
+        _whoseMove = _undoWhoseMove[u];
+        _gameOver = _undoGameOver[u];
+        _key = _undoKey[u];
+        _incremental = _undoIncremental[u];
+        _jumpersKnown = false;
+    }
+
+    /** Forget all recorded moves, so that the current position becomes
+     *  the earliest one that undo can return to. */
+    private void clearUndo() {
+        _undoCount = 0;
+    }
+
+    /** Double the capacity of the undo arrays. */
+    private void growUndo() {
+        int n = 2 * _undoCodes.length;
+        _undoCodes = Arrays.copyOf(_undoCodes, n);
+        _undoCaptured = Arrays.copyOf(_undoCaptured, n);
+        _undoLeft = Arrays.copyOf(_undoLeft, n);
+        _undoRight = Arrays.copyOf(_undoRight, n);
+        _undoWhoseMove = Arrays.copyOf(_undoWhoseMove, n);
+        _undoGameOver = Arrays.copyOf(_undoGameOver, n);
+        _undoKey = Arrays.copyOf(_undoKey, n);
+        _undoIncremental = Arrays.copyOf(_undoIncremental, n);
     }
 
     /** Return true iff MOV is legal on the current board.
@@ -553,10 +830,7 @@ class Board extends Observable {
         if (mov.isJump()) {
             PieceColor cur =  get(mov.fromIndex());
             while (mov != null) {
-                int from = mov.fromIndex();
-                Tile fromTile = tiles.get(from);
-                ArrayList<Integer> possJumps = fromTile.possibleJumps(from);
-                if (!possJumps.contains(mov.toIndex())) {
+                if (!contains(JUMP_MASK[mov.fromIndex()], mov.toIndex())) {
                     return false;
                 }
                 PieceColor jumped = get(mov.jumpedIndex());
@@ -574,71 +848,13 @@ class Board extends Observable {
         }
     }
 
-    /** Undo the last the last jump.
-     * @param beginning int
-     * @param mov Move
-     * @param jumpedList ArrayList<Integer>
-     * */
-    void undoJump(Move mov, ArrayList<Integer> jumpedList, int beginning) {
-        jumpedList.add(mov.jumpedIndex());
-        if (mov.jumpTail() == null) {
-            PieceColor cur = tiles.get(mov.toIndex()).getColor();
-            for (int jumped : jumpedList) {
-                set(jumped, cur.opposite());
-            }
-            tiles.get(mov.toIndex()).setColor(EMPTY);
-            set(beginning, cur);
-        } else {
-            undoJump(mov.jumpTail(), jumpedList, beginning);
-        }
-    }
-
     /** Undo the last move, if any.*/
     void undo() {
-        Move lastMove = (Move) trackMoves.pop();
-        if (lastMove != null) {
-            if (lastMove.isJump()) {
-                undoJump(lastMove, new ArrayList<Integer>(),
-                        lastMove.fromIndex());
-            } else {
-                Move dirIndicator;
-                if (!trackMoves.empty()) {
-                    dirIndicator = (Move) trackMoves.peek();
-                } else {
-                    dirIndicator = null;
-                }
-                Tile cur = tiles.get(lastMove.toIndex());
-                int curDir = cur.direction();
-                PieceColor curColor = cur.getColor();
-                if (lastMove.isRightMove()) {
-                    if (dirIndicator != null && dirIndicator.isRightMove()) {
-                        set(lastMove.fromIndex(), curColor, curDir);
-                        set(lastMove.toIndex(), EMPTY, 0);
-                    } else {
-                        set(lastMove.fromIndex(), curColor, 0);
-                        set(lastMove.toIndex(), EMPTY, 0);
-                    }
-                } else if (lastMove.isLeftMove()) {
-                    if (dirIndicator != null && dirIndicator.isLeftMove()) {
-                        set(lastMove.fromIndex(), curColor, curDir);
-                        set(lastMove.toIndex(), EMPTY, 0);
-                    } else {
-                        set(lastMove.fromIndex(), curColor, 0);
-                        set(lastMove.toIndex(), EMPTY, 0);
-                    }
-                } else {
-                    set(lastMove.fromIndex(), curColor, 0);
-                    set(lastMove.toIndex(), EMPTY, 0);
-                }
-            }
-        }
-        _whoseMove = _whoseMove.opposite();
-        updateGameOver();
-        if (_gameOver) {
-            _gameOver = false;
+        if (_undoCount > 0) {
+            unmake();
+            setChanged();
+            notifyObservers();
         }
-        setChanged();
-        notifyObservers();
     }
 
     @Override
@@ -660,13 +876,13 @@ class Board extends Observable {
                 if (legend && (cur % 5) == 0) {
                     out.format("%s", row[i]);
                     out.format("%s", " ");
-                    out.format("%s", tiles.get(cur).getColor().shortName());
+                    out.format("%s", get(cur).shortName());
                 } else if ((cur % 5) == 0) {
                     out.format("%s", "  ");
-                    out.format("%s", tiles.get(cur).getColor().shortName());
+                    out.format("%s", get(cur).shortName());
                 } else {
                     out.format("%s", " ");
-                    out.format("%s", tiles.get(cur).getColor().shortName());
+                    out.format("%s", get(cur).shortName());
                     if (j == 4 && (cur != 4)) {
                         out.format("%s", "\n");
                     }
@@ -687,39 +903,138 @@ class Board extends Observable {
         return out.toString();
     }
 
-    /** Updates if game is over. */
+    /** Updates if game is over.  The answer for each position is
+     *  remembered, by key, in GAME_OVER_CACHE. */
     public void updateGameOver() {
-        if (!isMove()) {
+        int slot = (int) _key & (GAME_OVER_CACHE_SIZE - 1);
+        long entry = GAME_OVER_CACHE[slot];
+        if (entry != 0 && entry == _key) {
+            _gameOver = false;
+        } else if (entry != 0 && entry == ~_key) {
             _gameOver = true;
         } else {
-            _gameOver = false;
+            _gameOver = !hasAnyMove();
+            GAME_OVER_CACHE[slot] = _gameOver ? ~_key : _key;
         }
     }
 
-    /** Return true iff there is a move for the current player. */
-    private boolean isMove() {
-        return !getMoves().isEmpty();
-
+    /** Return true iff there is a move for the current player.  Unlike
+     *  getMoves, stops at the first piece found that can move (or
+     *  capture), and ignores gameOver(). */
+    boolean hasAnyMove() {
+        if (jumpers() != 0) {
+            return true;
+        }
+        int mine = _whoseMove == WHITE ? _white : _black;
+        for (int m = mine; m != 0; m &= m - 1) {
+            if (quietTargets(Integer.numberOfTrailingZeros(m)) != 0) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    /** Returns all the tiles.
+    /** Returns a snapshot of all the tiles, in order of linearized index.
+     *  The Tiles are freshly built from the current position, so changes
+     *  to them do not affect this Board.
      * @return ArrayList<Tile>
      * */
     public ArrayList<Tile> tiles() {
-        return tiles;
+        ArrayList<Tile> result = new ArrayList<>();
+        for (int k = 0; k <= MAX_INDEX; k += 1) {
+            Tile tile = new Tile(direction(k), possibleMovesGen(k));
+            tile.setColor(get(k));
+            result.add(tile);
+        }
+        return result;
     }
 
-    /** Stores all the tiles in the board. */
-    private ArrayList<Tile> tiles;
-
-    /** Stores all the moves in the board. */
-    private Stack<Move> trackMoves = new Stack<>();
+    /** Bit masks of the squares holding white and black pieces.  Bit K
+     *  (that is, 1 << K) corresponds to the square with linearized
+     *  index K. */
+    private int _white, _black;
+
+    /** Bit masks of the pieces whose last move was a horizontal move to
+     *  the left (resp. right), and which therefore may not next move
+     *  horizontally to the right (resp. left).  Only occupied squares
+     *  have bits set. */
+    private int _left, _right;
+
+    /** Number of undo entries recorded: the entries for the moves made
+     *  on this Board, most recent last, occupy indices 0 .. _undoCount-1
+     *  of the _undo... arrays. */
+    private int _undoCount;
+
+    /** For each recorded move: its move code, the set of squares it
+     *  captured, the direction masks before the move (which hold the
+     *  mover's old direction and those of any captured pieces), whose move
+     *  it was, and the previous game-over flag.  Allocated once and grown
+     *  only when a game outruns them. */
+    private long[] _undoCodes = new long[UNDO_CAPACITY];
+    /** Captured squares for each undo entry. */
+    private int[] _undoCaptured = new int[UNDO_CAPACITY];
+    /** Previous direction masks for each undo entry. */
+    private int[] _undoLeft = new int[UNDO_CAPACITY],
+        _undoRight = new int[UNDO_CAPACITY];
+    /** Previous player on move for each undo entry. */
+    private PieceColor[] _undoWhoseMove = new PieceColor[UNDO_CAPACITY];
+    /** Previous game-over flag for each undo entry. */
+    private boolean[] _undoGameOver = new boolean[UNDO_CAPACITY];
+    /** Previous Zobrist key for each undo entry. */
+    private long[] _undoKey = new long[UNDO_CAPACITY];
+    /** Previous incremental evaluation term for each undo entry. */
+    private int[] _undoIncremental = new int[UNDO_CAPACITY];
+
+    /** The stack used by getJumps(long[], int, int): for each leg of
+     *  the jump under construction, the square on which it lands, the
+     *  index in JUMPS of the next continuation to try from there, the
+     *  jump so far, the squares it has captured, and whether it has been
+     *  continued.  Entry 0 describes the starting square. */
+    private final int[] _jumpStackSquare = new int[MoveCode.MAX_LEGS + 1],
+        _jumpStackNext = new int[MoveCode.MAX_LEGS + 1],
+        _jumpStackCaptured = new int[MoveCode.MAX_LEGS + 1];
+    /** Jumps so far, for the getJumps stack. */
+    private final long[] _jumpStackCode = new long[MoveCode.MAX_LEGS + 1];
+    /** Continuation flags, for the getJumps stack. */
+    private final boolean[] _jumpStackExtended =
+        new boolean[MoveCode.MAX_LEGS + 1];
+    /** When _jumpersKnown, the value of jumpers() for the current
+     *  position.  Every change to the position clears _jumpersKnown. */
+    private int _jumpers;
+    /** True iff _jumpers is up to date. */
+    private boolean _jumpersKnown;
+
+    /** Seed for the Zobrist codes. */
+    private static final long ZOBRIST_SEED = 0x51726b6174L;
+
+    /** Size of the move buffers passed to getMoves(long[]) by the
+     *  searches: more than the number of moves in any position that
+     *  arises in play. */
+    static final int MAX_MOVES = 256;
+
+    /** Number of entries in GAME_OVER_CACHE (a power of 2). */
+    private static final int GAME_OVER_CACHE_SIZE = 1 << 12;
+
+    /** Results of updateGameOver, shared by all Boards: the entry for a
+     *  position with key K is at index K mod GAME_OVER_CACHE_SIZE, and is
+     *  K if that position is not over and ~K if it is.  Any other value,
+     *  or 0, means the position is not in the cache.  May be read and written
+     *  by any thread; a write torn by another simply reads as a miss. */
+    private static final long[] GAME_OVER_CACHE =
+        new long[GAME_OVER_CACHE_SIZE];
+
+    /** Initial capacity of the undo arrays. */
+    private static final int UNDO_CAPACITY = 64;
 
     /** Return all the whose move on the board.
      * @param cur PieceColor
      * */
     void setWhoseMove(PieceColor cur) {
+        if ((_whoseMove == BLACK) != (cur == BLACK)) {
+            _key ^= ZOBRIST_BLACK_TO_MOVE;
+        }
         _whoseMove = cur;
+        _jumpersKnown = false;
     }
 
     /** Player that is on move. */
@@ -728,6 +1043,38 @@ class Board extends Observable {
     /** Set true when game ends. */
     private boolean _gameOver;
 
+    /** The Zobrist key of the current position (see key()).  Maintained
+     *  incrementally by set and whenever the player on move changes. */
+    private long _key;
+
+    /** The evaluator whose incremental term I keep, or null. */
+    private Evaluator _evaluator;
+    /** The incremental term of _evaluator for the current position (see
+     *  incremental).  Maintained incrementally by set. */
+    private int _incremental;
+
+    /** Zobrist codes for a white or black piece on each square, for the
+     *  direction of a piece on each square, and for black being on move.
+     *  Generated from a fixed seed so that keys are reproducible across
+     *  runs (and may be stored in files). */
+    private static final long[] ZOBRIST_WHITE = new long[MAX_INDEX + 1],
+        ZOBRIST_BLACK = new long[MAX_INDEX + 1],
+        ZOBRIST_LEFT = new long[MAX_INDEX + 1],
+        ZOBRIST_RIGHT = new long[MAX_INDEX + 1];
+    /** Zobrist code for black being on move. */
+    private static final long ZOBRIST_BLACK_TO_MOVE;
+
+    static {
+        Random zobrist = new Random(ZOBRIST_SEED);
+        for (int k = 0; k <= MAX_INDEX; k += 1) {
+            ZOBRIST_WHITE[k] = zobrist.nextLong();
+            ZOBRIST_BLACK[k] = zobrist.nextLong();
+            ZOBRIST_LEFT[k] = zobrist.nextLong();
+            ZOBRIST_RIGHT[k] = zobrist.nextLong();
+        }
+        ZOBRIST_BLACK_TO_MOVE = zobrist.nextLong();
+    }
+
     /** Convenience value giving values of pieces at each ordinal position. */
     static final PieceColor[] PIECE_VALUES = PieceColor.values();
 
@@ -738,29 +1085,16 @@ class Board extends Observable {
 
     @Override
     public int hashCode() {
-        return (tiles.hashCode() << 5)
-                |
-                tiles.hashCode();
+        return (int) (_key ^ (_key >>> 32));
     }
 
     @Override
     public boolean equals(Object o) {
         if (o instanceof Board) {
             Board b = (Board) o;
-            ArrayList<Integer> firstDirections = new ArrayList<>();
-            ArrayList<Integer> secondDirections = new ArrayList<>();
-            ArrayList<PieceColor> firstColors = new ArrayList<>();
-            ArrayList<PieceColor> secondColors = new ArrayList<>();
-            for (int i = 0; i < tiles.size(); i++) {
-                firstDirections.add(tiles.get(i).direction());
-                secondDirections.add(b.tiles.get(i).direction());
-                firstColors.add(tiles.get(i).getColor());
-                secondColors.add(b.tiles.get(i).getColor());
-            }
-            boolean directionsEqual = firstDirections.equals(secondDirections);
-            boolean colorsComparison = firstColors.equals(secondColors);
-            boolean whoseMoveComparison = _whoseMove.equals(b.whoseMove());
-            return colorsComparison && whoseMoveComparison && directionsEqual;
+            return _white == b._white && _black == b._black
+                && _left == b._left && _right == b._right
+                && _whoseMove == b._whoseMove;
         } else {
             return false;
         }
@@ -789,12 +1123,48 @@ class Board extends Observable {
             assert false;
         }
 
+        @Override
+        void makeTrustedMove(Move mov) {
+            assert false;
+        }
+
+        @Override
+        void makeMoveSetup(Move mov) {
+            assert false;
+        }
+
+        @Override
+        void make(Move mov) {
+            assert false;
+        }
+
+        @Override
+        void make(long code) {
+            assert false;
+        }
+
+        @Override
+        void unmake() {
+            assert false;
+        }
+
         /** Undo the last move. */
         @Override
         void undo() {
             assert false;
         }
 
+        @Override
+        void setPosition(int white, int black, int left, int right,
+                         PieceColor nextMove) {
+            assert false;
+        }
+
+        @Override
+        void setEvaluator(Evaluator evaluator) {
+            assert false;
+        }
+
         @Override
         public void update(Observable obs, Object arg) {
             super.copy((Board) obs);
@@ -3,6 +3,9 @@ package qirkat;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -92,6 +95,32 @@ public class BoardTest {
     }
 
 
+    @Test
+    public void testGeometry() {
+        assertArrayEquals(new Integer[] {10, 12, 2},
+                          box(Geometry.JUMPS[0]));
+        assertArrayEquals(new Integer[] {5, 6, 1},
+                          box(Geometry.JUMPED[0]));
+        assertArrayEquals(new Integer[] {16, 18, 8},
+                          box(Geometry.JUMPS[6]));
+        assertEquals(6, Geometry.jumped(0, 12));
+        assertEquals(-1, Geometry.jumped(1, 13));
+        assertEquals(-1, Geometry.jumped(0, 6));
+        assertTrue(Geometry.contains(Geometry.UPWARD[12], 18));
+        assertFalse(Geometry.contains(Geometry.UPWARD[7], 13));
+        assertTrue(Geometry.contains(Geometry.DOWNWARD[12], 6));
+        assertEquals(1 << 11, Geometry.LEFTWARD[12]);
+        assertEquals(0, Geometry.RIGHTWARD[24]);
+    }
+
+    private static Integer[] box(int[] a) {
+        Integer[] result = new Integer[a.length];
+        for (int i = 0; i < a.length; i += 1) {
+            result[i] = a[i];
+        }
+        return result;
+    }
+
     @Test
     public void testMoves1() {
         Board b0 = new Board();
@@ -124,6 +153,25 @@ public class BoardTest {
         assertFalse(b0.legalMove(fifth));
     }
 
+    @Test
+    public void testLegalJumps() {
+        Board b0 = new Board();
+        b0.setPieces("w---- -b--- ----- --b-- -----", PieceColor.WHITE);
+        assertTrue(b0.legalMove(Move.parseMove("a1-c3")));
+        assertTrue(b0.legalMove(Move.parseMove("a1-c3-c5")));
+        assertFalse("captured twice",
+                    b0.legalMove(Move.parseMove("a1-c3-a1")));
+        assertFalse("nothing to capture",
+                    b0.legalMove(Move.parseMove("a1-c3-e5")));
+        assertFalse("not a jump", b0.legalMove(Move.parseMove("a1-e1")));
+        Board b1 = new Board(b0);
+        b0.makeMove(Move.parseMove("a1-c3-c5"));
+        b1.makeTrustedMove(Move.parseMove("a1-c3-c5"));
+        assertEquals(b0, b1);
+        assertEquals(PieceColor.WHITE, b0.get('c', '5'));
+        assertEquals(PieceColor.EMPTY, b0.get('b', '2'));
+    }
+
     @Test
     public void testGetMoves() {
         Board b1 = new Board();
@@ -161,6 +209,64 @@ public class BoardTest {
         System.out.println(b0.getMoves());
     }
 
+    @Test
+    public void testCopyAndEquals() {
+        Board b0 = new Board();
+        makeMoves(b0, GAME1);
+        Board b1 = new Board(b0);
+        assertEquals(b0, b1);
+        assertEquals(b0.hashCode(), b1.hashCode());
+        assertEquals(b0.toString(), b1.toString());
+        b1.makeMove(b1.getMoves().get(0));
+        assertNotEquals(b0, b1);
+        b1.copy(b0);
+        assertEquals(b0, b1);
+    }
+
+    @Test
+    public void testConstantView() {
+        Board b0 = new Board();
+        Board view = b0.constantView();
+        long code = MoveCode.parse("c2-c3");
+        Move mov = Move.parseMove("c2-c3");
+        assertRejected(() -> view.makeMove(mov));
+        assertRejected(() -> view.makeTrustedMove(mov));
+        assertRejected(() -> view.makeMoveSetup(mov));
+        assertRejected(() -> view.make(mov));
+        assertRejected(() -> view.make(code));
+        assertRejected(() -> view.unmake());
+        assertRejected(() -> view.undo());
+        assertRejected(() -> view.setPosition(1, 2, 0, 0,
+                                              PieceColor.WHITE));
+        assertRejected(() -> view.setEvaluator(new MaterialEvaluator()));
+        assertEquals(INIT_BOARD, view.toString());
+        b0.makeMove(mov);
+        assertEquals(b0, view);
+    }
+
+    /** Check that MUTATOR, applied to a constant view, is rejected. */
+    private static void assertRejected(Runnable mutator) {
+        try {
+            mutator.run();
+        } catch (AssertionError e) {
+            return;
+        }
+        fail("constant view was modified");
+    }
+
+    @Test
+    public void testDirection() {
+        Board b0 = new Board();
+        b0.setPieces("----- -w--- ----- ----- ----b", PieceColor.WHITE);
+        b0.makeMove(Move.parseMove("b2-c2"));
+        assertEquals(1, b0.direction(Move.index('c', '2')));
+        b0.makeMove(Move.parseMove("e5-e4"));
+        assertFalse(b0.legalMove(Move.parseMove("c2-b2")));
+        assertTrue(b0.legalMove(Move.parseMove("c2-d2")));
+        b0.makeMove(Move.parseMove("c2-c3"));
+        assertEquals(0, b0.direction(Move.index('c', '3')));
+    }
+
     @Test
     public void testUndo() {
         Board b0 = new Board();
@@ -175,4 +281,309 @@ public class BoardTest {
         assertEquals("second pass failed to reach same position", b2, b0);
     }
 
+    @Test
+    public void testUndoSetupMoves() {
+        Board b0 = new Board();
+        b0.setPieces("----- -b--- --w-- ----- -b---", PieceColor.WHITE);
+        Board b1 = new Board(b0);
+        b0.makeMoveSetup(Move.parseMove("b5-b4"));
+        b0.makeMoveSetup(Move.parseMove("b2-d4"));
+        assertEquals(PieceColor.BLACK, b0.get('d', '4'));
+        assertEquals(PieceColor.EMPTY, b0.get('c', '3'));
+        b0.undo();
+        b0.undo();
+        assertEquals(b1, b0);
+        assertEquals(b1.toString(), b0.toString());
+        assertEquals(b1.key(), b0.key());
+    }
+
+    @Test
+    public void testUnmakeRestoresExactly() {
+        Random rand = new Random(61);
+        for (int game = 0; game < 20; game += 1) {
+            Board b0 = new Board();
+            ArrayList<Board> history = new ArrayList<>();
+            while (history.size() < 60) {
+                ArrayList<Move> moves = b0.getMoves();
+                if (moves.isEmpty()) {
+                    break;
+                }
+                history.add(new Board(b0));
+                b0.make(moves.get(rand.nextInt(moves.size())));
+            }
+            for (int i = history.size() - 1; i >= 0; i -= 1) {
+                b0.unmake();
+                assertEquals("unmake failed to restore position",
+                             history.get(i), b0);
+                assertEquals("unmake failed to restore key",
+                             history.get(i).key(), b0.key());
+                for (int k = 0; k <= Move.MAX_INDEX; k += 1) {
+                    assertEquals(history.get(i).direction(k),
+                                 b0.direction(k));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMoveCodes() {
+        Random rand = new Random(62);
+        long[] codes = new long[Board.MAX_MOVES];
+        for (int game = 0; game < 20; game += 1) {
+            Board b0 = new Board();
+            for (int ply = 0; ply < 60; ply += 1) {
+                ArrayList<Move> moves = b0.getMoves();
+                int n = b0.getMoves(codes);
+                assertEquals(moves.size(), n);
+                for (int i = 0; i < n; i += 1) {
+                    assertEquals(moves.get(i), MoveCode.toMove(codes[i]));
+                    assertEquals(MoveCode.encode(moves.get(i)), codes[i]);
+                }
+                if (n == 0) {
+                    break;
+                }
+                int i = rand.nextInt(n);
+                Board b1 = new Board(b0);
+                b1.make(moves.get(i));
+                b0.make(codes[i]);
+                assertEquals(b1, b0);
+                assertEquals(b1.key(), b0.key());
+            }
+        }
+    }
+
+    @Test
+    public void testJumpPossible() {
+        Random rand = new Random(63);
+        long[] codes = new long[Board.MAX_MOVES];
+        for (int game = 0; game < 20; game += 1) {
+            Board b0 = new Board();
+            for (int ply = 0; ply < 60; ply += 1) {
+                int n = b0.getMoves(codes);
+                int jumpers = 0;
+                for (int i = 0; i < n; i += 1) {
+                    if (MoveCode.isJump(codes[i])) {
+                        jumpers |= 1 << MoveCode.from(codes[i]);
+                    }
+                }
+                assertEquals(jumpers != 0, b0.jumpPossible());
+                for (int k = 0; k <= Move.MAX_INDEX; k += 1) {
+                    assertEquals((jumpers & (1 << k)) != 0,
+                                 b0.jumpPossible(k));
+                }
+                if (n == 0) {
+                    break;
+                }
+                b0.make(codes[rand.nextInt(n)]);
+            }
+        }
+    }
+
+    @Test
+    public void testGameOver() {
+        Random rand = new Random(64);
+        long[] codes = new long[Board.MAX_MOVES];
+        for (int game = 0; game < 20; game += 1) {
+            Board b0 = new Board();
+            for (int ply = 0; ply < 100; ply += 1) {
+                int n = b0.getMoves(codes);
+                assertEquals(n != 0, b0.hasAnyMove());
+                b0.updateGameOver();
+                assertEquals(n == 0, b0.gameOver());
+                b0.updateGameOver();
+                assertEquals(n == 0, b0.gameOver());
+                if (n == 0) {
+                    break;
+                }
+                b0.make(codes[rand.nextInt(n)]);
+            }
+        }
+        Board b1 = new Board();
+        b1.setPieces("----- ----- ----- ----- -----", PieceColor.WHITE);
+        b1.updateGameOver();
+        assertTrue(b1.gameOver());
+        b1.setPieces("----- ----- ----- ----- ----w", PieceColor.WHITE);
+        b1.updateGameOver();
+        assertTrue("no moves from the top row", b1.gameOver());
+        b1.setPieces("----- ----- ----- ----w -----", PieceColor.WHITE);
+        b1.updateGameOver();
+        assertFalse(b1.gameOver());
+    }
+
+    @Test
+    public void testMovePicker() {
+        Random rand = new Random(65);
+        long[] codes = new long[Board.MAX_MOVES];
+        MovePicker picker = new MovePicker(new int[25 * 25]);
+        for (int game = 0; game < 20; game += 1) {
+            Board b0 = new Board();
+            for (int ply = 0; ply < 60; ply += 1) {
+                int n = b0.getMoves(codes);
+                long hashMove =
+                    n == 0 ? MoveCode.NONE : codes[rand.nextInt(n)];
+                picker.reset(b0, hashMove);
+                ArrayList<Long> picked = new ArrayList<>();
+                for (long mov = picker.next(); mov != MoveCode.NONE;
+                     mov = picker.next()) {
+                    picked.add(mov);
+                }
+                assertEquals(n, picked.size());
+                for (int i = 0; i < n; i += 1) {
+                    assertTrue(picked.contains(codes[i]));
+                    assertTrue(b0.isLegal(codes[i]));
+                }
+                if (n == 0) {
+                    break;
+                }
+                assertEquals(hashMove, (long) picked.get(0));
+                assertFalse(b0.isLegal(MoveCode.quiet(0, 24)));
+                b0.make(codes[rand.nextInt(n)]);
+            }
+        }
+    }
+
+    @Test
+    public void testKeys() {
+        Board b0 = new Board();
+        Board b1 = new Board();
+        assertEquals(b0.key(), b1.key());
+        makeMoves(b0, GAME1);
+        makeMoves(b1, GAME1);
+        assertEquals(b0.key(), b1.key());
+
+        String[] rows = b0.toString().split("\n");
+        String pieces = "";
+        for (String row : rows) {
+            pieces = row + pieces;
+        }
+        Board b2 = new Board();
+        b2.setPieces(pieces, b0.whoseMove());
+        assertEquals(b0, b2);
+        assertEquals(b0.key(), b2.key());
+        b2.setWhoseMove(b2.whoseMove().opposite());
+        assertNotEquals(b0.key(), b2.key());
+
+        Board b3 = new Board();
+        b3.setPieces("----- -w--- ----- ----- ----b", PieceColor.WHITE);
+        Board b4 = new Board();
+        b4.setPieces("----- --w-- ----- ----- ---b-", PieceColor.WHITE);
+        makeMoves(b3, new String[] {"b2-c2", "e5-d5"});
+        assertEquals(b3.toString(), b4.toString());
+        assertNotEquals("direction must affect key", b3.key(), b4.key());
+    }
+
+    /** Return the set of jumps generated for the player on move on B,
+     *  as strings. */
+    private static HashSet<String> generatedJumps(Board b) {
+        long[] codes = new long[100000];
+        int n = b.getJumps(codes);
+        assertTrue("move buffer overflowed", n < codes.length);
+        HashSet<String> result = new HashSet<>();
+        for (int i = 0; i < n; i += 1) {
+            assertTrue("duplicate jump",
+                       result.add(MoveCode.toString(codes[i])));
+        }
+        return result;
+    }
+
+    /** Return the set of complete jumps for the player on move on B, as
+     *  strings, found by straightforward recursion (see addJumps). */
+    private static HashSet<String> expectedJumps(Board b) {
+        HashSet<String> result = new HashSet<>();
+        for (int c = 0; c < 5; c += 1) {
+            for (int r = 0; r < 5; r += 1) {
+                if (b.get((char) ('a' + c), (char) ('1' + r))
+                    == b.whoseMove()) {
+                    addJumps(b, c, r, c, r, new boolean[5][5],
+                             "" + (char) ('a' + c) + (char) ('1' + r),
+                             result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Add to RESULT, as strings with prefix PATH, the complete jumps
+     *  continuing a jump by the piece that started at column C0 and row
+     *  R0 (numbered from 0) of B, now at column C and row R, having
+     *  captured the pieces marked in CAPTURED. */
+    private static void addJumps(Board b, int c0, int r0, int c, int r,
+                                 boolean[][] captured, String path,
+                                 HashSet<String> result) {
+        boolean extended = false;
+        for (int dc = -1; dc <= 1; dc += 1) {
+            for (int dr = -1; dr <= 1; dr += 1) {
+                int c1 = c + dc, r1 = r + dr, c2 = c + 2 * dc,
+                    r2 = r + 2 * dr;
+                if ((dc == 0 && dr == 0) || (dc != 0 && dr != 0
+                                             && (c + r) % 2 != 0)
+                    || c2 < 0 || c2 > 4 || r2 < 0 || r2 > 4
+                    || captured[c1][r1]
+                    || b.get((char) ('a' + c1), (char) ('1' + r1))
+                       != b.whoseMove().opposite()) {
+                    continue;
+                }
+                PieceColor landing =
+                    b.get((char) ('a' + c2), (char) ('1' + r2));
+                if (landing != PieceColor.EMPTY && !captured[c2][r2]
+                    && !(c2 == c0 && r2 == r0)) {
+                    continue;
+                }
+                extended = true;
+                captured[c1][r1] = true;
+                addJumps(b, c0, r0, c2, r2, captured,
+                         path + "-" + (char) ('a' + c2) + (char) ('1' + r2),
+                         result);
+                captured[c1][r1] = false;
+            }
+        }
+        if (!extended && path.length() > 2) {
+            result.add(path);
+        }
+    }
+
+    @Test
+    public void testMultiLegJumps() {
+        Board b = new Board();
+        b.setPieces("--w-- --b-- ----- -b-b- -----", PieceColor.WHITE);
+        HashSet<String> expected =
+            new HashSet<>(Arrays.asList("c1-c3-a5", "c1-c3-e5"));
+        assertEquals(expected, expectedJumps(b));
+        assertEquals(expected, generatedJumps(b));
+        b.setPieces("w---- -b--- ----- --b-- -----", PieceColor.WHITE);
+        assertEquals(new HashSet<>(Arrays.asList("a1-c3-c5")),
+                     generatedJumps(b));
+    }
+
+    @Test
+    public void testJumpsRevisitingStart() {
+        Board b = new Board();
+        b.setPieces("----- ----- wb--- -bb-- -----", PieceColor.WHITE);
+        HashSet<String> expected =
+            new HashSet<>(Arrays.asList("a3-c5-c3-a3", "a3-c3-c5-a3",
+                                        "a3-c3-a5"));
+        assertEquals(expected, expectedJumps(b));
+        assertEquals(expected, generatedJumps(b));
+        makeMoves(b = new Board(), GAME2);
+        b.setWhoseMove(b.whoseMove().opposite());
+        b.makeMove(Move.parseMove("b4-b3"));
+        b.setWhoseMove(b.whoseMove().opposite());
+        b.makeMove(Move.parseMove("b5-b4"));
+        assertEquals(expectedJumps(b), generatedJumps(b));
+        assertTrue(generatedJumps(b).contains("a3-c5-c3-a3"));
+    }
+
+    @Test
+    public void testLongestJumps() {
+        Board b = new Board();
+        b.setPieces("wb-b- bbbbb -b-b- bbbbb -b-b-", PieceColor.WHITE);
+        HashSet<String> generated = generatedJumps(b);
+        assertEquals(expectedJumps(b), generated);
+        int longest = 0;
+        for (String jump : generated) {
+            longest = Math.max(longest, jump.split("-").length - 1);
+        }
+        assertEquals(MoveCode.MAX_LEGS, longest);
+    }
+
 }
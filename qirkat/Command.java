@@ -16,9 +16,19 @@ class Command {
      *  programmer writes. */
     static enum Type {
         /* Start-up state only. */
-        AUTO("(?i)auto\\s+(white|black)"),
+        AUTO("(?i)auto\\s+(white|black)(?:\\s+([a-z]+))?"),
         MANUAL("(?i)manual\\s+(white|black)"),
         SEED("seed\\s+(\\d+)"),
+        HASH("hash\\s+(\\d+)"),
+        TIME("time\\s+(\\d+)"),
+        THREADS("threads\\s+(\\d+)"),
+        TABLEBASE("tablebase\\s+(\\S+)"),
+        BOOK("book\\s+(\\S+)(?:\\s+(random))?"),
+        PONDER("ponder\\s+(on|off)"),
+        PLAYOUTS("playouts\\s+(\\d+)"),
+        REDUCTIONS("reductions\\s+(\\d+)\\s+(\\d+)"),
+        FUTILITY("futility\\s+(\\d+)\\s+(\\d+)"),
+        EVALUATOR("evaluator\\s+(\\S+)"),
         START,
         SETBOARD("(?i)set\\s+(white|black)\\s+((?:[bw-]\\s*){25})"),
         /* Regular moves (set-up or play) */
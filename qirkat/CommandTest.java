@@ -29,8 +29,11 @@ public class CommandTest {
     }
 
     @Test public void testAUTO() {
-        check("auto white", AUTO, "white");
-        check("auto black", AUTO, "black");
+        check("auto white", AUTO, "white", null);
+        check("auto black", AUTO, "black", null);
+        check("auto white ybw", AUTO, "white", "ybw");
+        check("auto black mtdf", AUTO, "black", "mtdf");
+        check("auto white mcts", AUTO, "white", "mcts");
         checkError("auto green");
         checkError("auto");
         checkError("auto red foo");
@@ -43,6 +46,65 @@ public class CommandTest {
         checkError("seed 142 foo");
     }
 
+    @Test public void testHASH() {
+        check("hash 64", HASH, "64");
+        checkError("hash");
+        checkError("hash -1");
+        checkError("hash 64 foo");
+    }
+
+    @Test public void testTIME() {
+        check("time 500", TIME, "500");
+        checkError("time");
+        checkError("time 1.5");
+    }
+
+    @Test public void testTABLEBASE() {
+        check("tablebase tb2.bin", TABLEBASE, "tb2.bin");
+        checkError("tablebase");
+    }
+
+    @Test public void testBOOK() {
+        check("book openings.bin", BOOK, "openings.bin", null);
+        check("book openings.bin random", BOOK, "openings.bin", "random");
+        checkError("book");
+        checkError("book openings.bin often");
+    }
+
+    @Test public void testPONDER() {
+        check("ponder on", PONDER, "on");
+        check("ponder off", PONDER, "off");
+        checkError("ponder");
+        checkError("ponder sometimes");
+    }
+
+    @Test public void testPLAYOUTS() {
+        check("playouts 10000", PLAYOUTS, "10000");
+        checkError("playouts");
+        checkError("playouts many");
+    }
+
+    @Test public void testREDUCTIONS() {
+        check("reductions 3 2", REDUCTIONS, "3", "2");
+        checkError("reductions 3");
+    }
+
+    @Test public void testFUTILITY() {
+        check("futility 0 100", FUTILITY, "0", "100");
+        checkError("futility two 100");
+    }
+
+    @Test public void testEVALUATOR() {
+        check("evaluator material", EVALUATOR, "material");
+        checkError("evaluator");
+    }
+
+    @Test public void testTHREADS() {
+        check("threads 8", THREADS, "8");
+        checkError("threads");
+        checkError("threads eight");
+    }
+
     @Test public void testSTART() {
         check("start", START);
         checkError("start foo");
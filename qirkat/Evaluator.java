@@ -0,0 +1,30 @@
+package qirkat;
+
+/** A static evaluation function for Qirkat positions, as used at the
+ *  leaves of the AI's searches.  Values are from white's point of view:
+ *  the more positive, the better for white, so that the value of a
+ *  position with colors exchanged and the board reflected top to bottom
+ *  is the negative of the original's.
+ *  @author Tony Hsu
+ */
+interface Evaluator {
+
+    /** The value of one piece of material.  The searches measure their
+     *  margins and windows in multiples of it. */
+    int PIECE_VALUE = 100;
+
+    /** Return the value of BOARD.  Should take constant time, since the
+     *  searches call it at every leaf. */
+    int score(Board board);
+
+    /** Return the contribution to my incremental term of a piece of
+     *  color COLOR (WHITE or BLACK) on the square with linearized index
+     *  K.  A Board on which I am installed (see Board.setEvaluator) keeps
+     *  the sum of these over its pieces up to date as they move, so that
+     *  score may get it from Board.incremental in constant time.  By
+     *  default, I have no incremental term. */
+    default int squareWeight(PieceColor color, int k) {
+        return 0;
+    }
+
+}
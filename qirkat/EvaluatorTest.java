@@ -0,0 +1,127 @@
+package qirkat;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests of the evaluators and the incremental terms that Board keeps
+ *  for them.
+ *  @author Tony Hsu
+ */
+public class EvaluatorTest {
+
+    /** Return the sum of EVAL's square weights over the pieces on B,
+     *  computed from scratch. */
+    private static int weights(Evaluator eval, Board b) {
+        int result = 0;
+        for (int k = 0; k <= Move.MAX_INDEX; k += 1) {
+            if (b.get(k) != PieceColor.EMPTY) {
+                result += eval.squareWeight(b.get(k), k);
+            }
+        }
+        return result;
+    }
+
+    /** An evaluator whose incremental term is unlike that of any other,
+     *  for checking that Board keeps whichever term is installed. */
+    private static final Evaluator SQUARES = new Evaluator() {
+        @Override
+        public int score(Board board) {
+            return board.incremental(this);
+        }
+
+        @Override
+        public int squareWeight(PieceColor color, int k) {
+            return color == PieceColor.WHITE ? k + 1 : -100 * (k + 1);
+        }
+    };
+
+    /** Return the position on B with colors exchanged and the board
+     *  reflected top to bottom, with the other player to move. */
+    private static Board mirror(Board b) {
+        StringBuilder str = new StringBuilder();
+        for (char r = '5'; r >= '1'; r -= 1) {
+            for (char c = 'a'; c <= 'e'; c += 1) {
+                PieceColor p = b.get(c, r);
+                str.append(p.isPiece() ? p.opposite().shortName() : "-");
+            }
+            str.append(' ');
+        }
+        Board result = new Board();
+        result.setPieces(str.toString(), b.whoseMove().opposite());
+        return result;
+    }
+
+    @Test
+    public void testIncremental() {
+        checkIncremental(new PieceSquareEvaluator());
+        checkIncremental(SQUARES);
+    }
+
+    /** Check that a Board on which EVAL is installed keeps its
+     *  incremental term correct through random moves and unmoves. */
+    private static void checkIncremental(Evaluator eval) {
+        Random rand = new Random(21);
+        long[] codes = new long[Board.MAX_MOVES];
+        Board b = new Board();
+        b.setEvaluator(eval);
+        assertEquals(weights(eval, b), b.incremental(eval));
+        int made = 0;
+        for (int i = 0; i < 400; i += 1) {
+            int n = b.getMoves(codes);
+            if (n > 0 && (made == 0 || rand.nextInt(3) > 0)) {
+                b.make(codes[rand.nextInt(n)]);
+                made += 1;
+            } else if (made > 0) {
+                b.unmake();
+                made -= 1;
+            }
+            assertEquals(weights(eval, b), b.incremental(eval));
+            assertEquals(weights(eval, b), new Board(b).incremental(eval));
+        }
+    }
+
+    @Test
+    public void testNotInstalled() {
+        Evaluator eval = new PieceSquareEvaluator();
+        Board b = new Board();
+        b.setEvaluator(SQUARES);
+        b.make(MoveCode.parse("c2-c3"));
+        assertEquals(weights(eval, b), b.incremental(eval));
+        Board b1 = new Board(b);
+        b1.setEvaluator(eval);
+        assertEquals(eval.score(b1), eval.score(b));
+        assertEquals(0, new MaterialEvaluator().score(b));
+    }
+
+    @Test
+    public void testSymmetry() {
+        Evaluator eval = new PieceSquareEvaluator();
+        Board b = new Board();
+        assertEquals(0, eval.score(b));
+        Random rand = new Random(5);
+        long[] codes = new long[Board.MAX_MOVES];
+        for (int i = 0; i < 20; i += 1) {
+            int n = b.getMoves(codes);
+            if (n == 0) {
+                break;
+            }
+            b.make(codes[rand.nextInt(n)]);
+            assertEquals(-eval.score(b), eval.score(mirror(b)));
+        }
+    }
+
+    @Test
+    public void testEverySquareCounts() {
+        Evaluator eval = new PieceSquareEvaluator();
+        Board b = new Board();
+        b.setPieces("b---- ----- ----- ----- -----", PieceColor.WHITE);
+        int black = eval.score(b);
+        assertTrue(black < 0);
+        b.setPieces("----- ----- ----- ----- ----w", PieceColor.WHITE);
+        assertEquals(-black, eval.score(b));
+    }
+
+}
@@ -8,7 +8,9 @@ import java.io.InputStreamReader;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Random;
 import java.util.function.Consumer;
 
@@ -41,18 +43,19 @@ class Game {
      * @param player PieceColor
      * @return Player*/
     Player setUpPlayer(boolean manual, PieceColor player) {
-        if (player.equals(BLACK)) {
-            if (manual) {
-                return new Manual(this, BLACK);
-            } else {
-                return new AI(this, BLACK);
-            }
-        } else {
-            if (manual) {
-                return new Manual(this, WHITE);
-            } else {
-                return new AI(this, WHITE);
-            }
+        if (manual) {
+            return new Manual(this, player);
+        }
+        String engine = player.equals(WHITE) ? _whiteEngine : _blackEngine;
+        switch (engine) {
+        case "ybw":
+            return new ParallelAI(this, player);
+        case "mtdf":
+            return new AI(this, player, true);
+        case "mcts":
+            return new MonteCarloAI(this, player);
+        default:
+            return new AI(this, player);
         }
     }
 
@@ -106,7 +109,12 @@ class Game {
                 }
                 if (_state == PLAYING) {
                     try {
-                        _board.makeMove(move);
+                        PieceColor mover = _board.whoseMove();
+                        if (mover == A1 || mover == A2) {
+                            _board.makeTrustedMove(move);
+                        } else {
+                            _board.makeMove(move);
+                        }
                         PieceColor temp = _board.whoseMove().opposite();
                         if ((!(A1 == null)) && temp.equals(A1)) {
                             String message = A1.toString() + " moves "
@@ -124,6 +132,8 @@ class Game {
                 }
                 _board.updateGameOver();
             }
+            white.endGame();
+            black.endGame();
             if (_state == PLAYING) {
                 reportWinner();
             }
@@ -188,14 +198,23 @@ class Game {
 
     /* Command Processors */
 
-    /** Perform the command 'auto OPERANDS[0]'. */
+    /** Perform the command 'auto OPERANDS[0] OPERANDS[1]', where
+     *  OPERANDS[1], if not null, names the search engine to use. */
     void doAuto(String[] operands) {
         _state = SETUP;
         String playerAI = operands[0];
-        if (playerAI.equals("White")) {
+        String engine =
+            operands.length < 2 || operands[1] == null ? DEFAULT_ENGINE
+            : operands[1].toLowerCase();
+        if (!ENGINES.contains(engine)) {
+            throw error("Unknown engine: %s", operands[1]);
+        }
+        if (playerAI.equalsIgnoreCase("White")) {
             _whiteIsManual = false;
+            _whiteEngine = engine;
         } else {
             _blackIsManual = false;
+            _blackEngine = engine;
         }
     }
 
@@ -241,7 +260,7 @@ class Game {
     void doManual(String[] operands) {
         _state = SETUP;
         String playerManual = operands[0];
-        if (playerManual.equals("White")) {
+        if (playerManual.equalsIgnoreCase("White")) {
             _whiteIsManual = true;
         } else {
             _blackIsManual = true;
@@ -318,6 +337,230 @@ class Game {
         }
     }
 
+    /** Execute 'hash OPERANDS[0]' command, where the operand is a string
+     *  of decimal digits giving the size in megabytes of the
+     *  transposition table used by AIs created afterwards. */
+    void doHash(String[] operands) {
+        try {
+            int size = Integer.parseInt(operands[0]);
+            if (size > TranspositionTable.MAX_MEGABYTES) {
+                throw new NumberFormatException();
+            }
+            _hashSize = size;
+        } catch (NumberFormatException e) {
+            throw error("Hash size must be at most %d megabytes",
+                        TranspositionTable.MAX_MEGABYTES);
+        }
+    }
+
+    /** Return the size, in megabytes, of the transposition table that AIs
+     *  should use. */
+    int hashSize() {
+        return _hashSize;
+    }
+
+    /** Execute 'time OPERANDS[0]' command, where the operand is a string
+     *  of decimal digits giving the number of milliseconds an AI may
+     *  spend searching for each move. */
+    void doTime(String[] operands) {
+        try {
+            setMoveTime(Long.parseLong(operands[0]));
+        } catch (NumberFormatException e) {
+            throw error("Move time too large");
+        }
+    }
+
+    /** Let AIs spend MSEC milliseconds searching for each move. */
+    void setMoveTime(long msec) {
+        _moveTime = msec;
+    }
+
+    /** Return the number of milliseconds an AI may spend searching for
+     *  each move. */
+    long moveTime() {
+        return _moveTime;
+    }
+
+    /** Execute 'threads OPERANDS[0]' command, where the operand is a
+     *  string of decimal digits giving the number of threads each AI
+     *  may search with. */
+    void doThreads(String[] operands) {
+        try {
+            int threads = Integer.parseInt(operands[0]);
+            if (threads < 1 || threads > MAX_THREADS) {
+                throw new NumberFormatException();
+            }
+            _threads = threads;
+        } catch (NumberFormatException e) {
+            throw error("Number of threads must be between 1 and %d",
+                        MAX_THREADS);
+        }
+    }
+
+    /** Execute 'reductions OPERANDS[0] OPERANDS[1]' command, where the
+     *  operands are the least depth (0 for none) and number of moves
+     *  already searched at which AIs reduce non-capturing moves (see
+     *  Searcher.setReductions). */
+    void doReductions(String[] operands) {
+        try {
+            int depth = Integer.parseInt(operands[0]),
+                moves = Integer.parseInt(operands[1]);
+            if (depth == 1 || depth > Searcher.MAX_DEPTH || moves < 1) {
+                throw new NumberFormatException();
+            }
+            _reductionDepth = depth;
+            _reductionMoves = moves;
+        } catch (NumberFormatException e) {
+            throw error("Reduction depth must be 0 or between 2 and %d, "
+                        + "and moves at least 1", Searcher.MAX_DEPTH);
+        }
+    }
+
+    /** Return the least depth at which AIs reduce moves, or 0 if they
+     *  do not. */
+    int reductionDepth() {
+        return _reductionDepth;
+    }
+
+    /** Return the number of moves AIs search in full before reducing
+     *  the rest. */
+    int reductionMoves() {
+        return _reductionMoves;
+    }
+
+    /** Execute 'futility OPERANDS[0] OPERANDS[1]' command, where the
+     *  operands are the depth (0 for none) and margin per ply with which
+     *  AIs prune futile moves (see Searcher.setFutility). */
+    void doFutility(String[] operands) {
+        try {
+            int depth = Integer.parseInt(operands[0]),
+                margin = Integer.parseInt(operands[1]);
+            if (depth > Searcher.MAX_DEPTH) {
+                throw new NumberFormatException();
+            }
+            _futilityDepth = depth;
+            _futilityMargin = margin;
+        } catch (NumberFormatException e) {
+            throw error("Futility depth must be at most %d",
+                        Searcher.MAX_DEPTH);
+        }
+    }
+
+    /** Return the depth to which AIs prune futile moves, or 0 if they
+     *  do not. */
+    int futilityDepth() {
+        return _futilityDepth;
+    }
+
+    /** Return the margin per ply beyond which AIs prune futile
+     *  moves. */
+    int futilityMargin() {
+        return _futilityMargin;
+    }
+
+    /** Execute 'evaluator OPERANDS[0]' command, where the operand names
+     *  the evaluation function (one of EVALUATORS) for AIs created
+     *  afterwards to use. */
+    void doEvaluator(String[] operands) {
+        String name = operands[0].toLowerCase();
+        if (!EVALUATORS.contains(name)) {
+            throw error("Unknown evaluator: %s", operands[0]);
+        }
+        _evaluatorName = name;
+    }
+
+    /** Return a new instance of the evaluation function that AIs should
+     *  use. */
+    Evaluator evaluator() {
+        switch (_evaluatorName) {
+        case "material":
+            return new MaterialEvaluator();
+        default:
+            return new PieceSquareEvaluator();
+        }
+    }
+
+    /** Return the number of threads each AI may search with. */
+    int threads() {
+        return _threads;
+    }
+
+    /** Execute 'tablebase OPERANDS[0]' command, where the operand names
+     *  an endgame tablebase file (see TablebaseBuilder) for AIs created
+     *  afterwards to use. */
+    void doTablebase(String[] operands) {
+        try {
+            _tablebase = Tablebase.open(operands[0]);
+        } catch (IOException e) {
+            throw error("Cannot open tablebase %s", operands[0]);
+        }
+    }
+
+    /** Return the endgame tablebase that AIs should use, or null if
+     *  there is none. */
+    Tablebase tablebase() {
+        return _tablebase;
+    }
+
+    /** Execute 'book OPERANDS[0] [OPERANDS[1]]' command, where the first
+     *  operand names an opening book file (see OpeningBookBuilder) for
+     *  AIs to use, and the second, if present, asks them to choose among
+     *  its moves at random. */
+    void doBook(String[] operands) {
+        try {
+            _book = OpeningBook.open(operands[0]);
+        } catch (IOException e) {
+            throw error("Cannot open opening book %s", operands[0]);
+        }
+        _bookRandom = operands.length > 1 && operands[1] != null;
+    }
+
+    /** Return the opening book that AIs should use, or null if there is
+     *  none. */
+    OpeningBook book() {
+        return _book;
+    }
+
+    /** Return true iff AIs should choose among book moves at random,
+     *  rather than always playing the best. */
+    boolean bookRandom() {
+        return _bookRandom;
+    }
+
+    /** Execute 'ponder OPERANDS[0]' command, where the operand is "on"
+     *  to let AIs think on their opponents' time, or "off" not to. */
+    void doPonder(String[] operands) {
+        _ponder = operands[0].equals("on");
+    }
+
+    /** Return true iff AIs should think on their opponents' time. */
+    boolean ponder() {
+        return _ponder;
+    }
+
+    /** Return true iff player COLOR is a manual player. */
+    boolean manual(PieceColor color) {
+        return color == WHITE ? _whiteIsManual : _blackIsManual;
+    }
+
+    /** Execute 'playouts OPERANDS[0]' command, where the operand is
+     *  the number of playouts Monte-Carlo AIs should run per move, in
+     *  place of their time budget, or 0 to go back to the time
+     *  budget. */
+    void doPlayouts(String[] operands) {
+        try {
+            _playouts = Long.parseLong(operands[0]);
+        } catch (NumberFormatException e) {
+            throw error("Too many playouts: %s", operands[0]);
+        }
+    }
+
+    /** Return the number of playouts Monte-Carlo AIs should run per
+     *  move, or 0 if they should use the time budget. */
+    long playouts() {
+        return _playouts;
+    }
+
     /** Execute the artificial 'error' command. */
     void doError(String[] unused) {
         throw error("Command not understood");
@@ -346,6 +589,16 @@ class Game {
         _commands.put(MANUAL, this::doManual);
         _commands.put(PIECEMOVE, this::doMove);
         _commands.put(SEED, this::doSeed);
+        _commands.put(HASH, this::doHash);
+        _commands.put(TIME, this::doTime);
+        _commands.put(THREADS, this::doThreads);
+        _commands.put(TABLEBASE, this::doTablebase);
+        _commands.put(BOOK, this::doBook);
+        _commands.put(PONDER, this::doPonder);
+        _commands.put(PLAYOUTS, this::doPlayouts);
+        _commands.put(REDUCTIONS, this::doReductions);
+        _commands.put(FUTILITY, this::doFutility);
+        _commands.put(EVALUATOR, this::doEvaluator);
         _commands.put(SETBOARD, this::doSet);
         _commands.put(START, this::doStart);
         _commands.put(LOAD, this::doLoad);
@@ -361,10 +614,57 @@ class Game {
     private Board _board, _constBoard;
     /** Indicate which players are manual players (as opposed to AIs). */
     private boolean _whiteIsManual, _blackIsManual;
+    /** Names of the search engines used by white and black when they
+     *  are AIs. */
+    private String _whiteEngine = DEFAULT_ENGINE,
+        _blackEngine = DEFAULT_ENGINE;
+    /** Name of the default search engine. */
+    static final String DEFAULT_ENGINE = "ab";
+    /** Names of the available search engines: "ab" (AI), "ybw"
+     *  (ParallelAI), "mtdf" (AI searching by MTD(f)), and "mcts"
+     *  (MonteCarloAI). */
+    static final List<String> ENGINES =
+        Arrays.asList("ab", "ybw", "mtdf", "mcts");
+    /** Name of the evaluation function for AIs. */
+    private String _evaluatorName = DEFAULT_EVALUATOR;
+    /** Name of the default evaluation function. */
+    static final String DEFAULT_EVALUATOR = "pst";
+    /** Names of the available evaluation functions: "pst"
+     *  (PieceSquareEvaluator) and "material" (MaterialEvaluator). */
+    static final List<String> EVALUATORS = Arrays.asList("pst", "material");
     /** Current game state. */
     private State _state;
     /** Used to send messages to the user. */
     private Reporter _reporter;
+    /** Size of AI transposition tables, in megabytes. */
+    private int _hashSize = DEFAULT_HASH_SIZE;
+    /** Default size of AI transposition tables, in megabytes. */
+    static final int DEFAULT_HASH_SIZE = 16;
+    /** Time AIs may spend searching for each move, in milliseconds. */
+    private long _moveTime = DEFAULT_MOVE_TIME;
+    /** Default time AIs may spend searching for each move, in
+     *  milliseconds. */
+    static final long DEFAULT_MOVE_TIME = 1000;
+    /** Number of threads each AI searches with. */
+    private int _threads = 1;
+    /** Endgame tablebase for AIs, or null. */
+    private Tablebase _tablebase;
+    /** Opening book for AIs, or null. */
+    private OpeningBook _book;
+    /** True iff AIs choose among book moves at random. */
+    private boolean _bookRandom;
+    /** True iff AIs think on their opponents' time. */
+    private boolean _ponder;
+    /** Playouts per move for Monte-Carlo AIs, or 0 to use _moveTime. */
+    private long _playouts;
+    /** Settings of AIs' late-move reductions and futility pruning (see
+     *  Searcher.setReductions and Searcher.setFutility). */
+    private int _reductionDepth = Searcher.REDUCTION_DEPTH,
+        _reductionMoves = Searcher.REDUCTION_MOVES,
+        _futilityDepth = Searcher.FUTILITY_DEPTH,
+        _futilityMargin = Searcher.FUTILITY_MARGIN;
+    /** Maximum number of threads per AI. */
+    static final int MAX_THREADS = 256;
     /** Source of pseudo-random numbers (used by AIs). */
     private Random _randoms = new Random();
 }
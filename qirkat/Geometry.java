@@ -0,0 +1,165 @@
+package qirkat;
+
+import java.util.Arrays;
+
+import static qirkat.Move.*;
+
+/** Precomputed facts about the shape of the Qirkat board: which squares
+ *  are adjacent to which, where jumps land and which square they pass
+ *  over.  All tables are indexed by linearized index and built once, when
+ *  the class is loaded, so that answering "where can this piece go"
+ *  never allocates.  Square sets are represented as int bit masks in
+ *  which bit K (1 << K) stands for the square with linearized index K.
+ *  @author Tony Hsu
+ */
+final class Geometry {
+
+    /** Not instantiable. */
+    private Geometry() {
+    }
+
+    /** The eight directions of movement, as column and row steps, in the
+     *  order in which neighbors and jumps are listed. */
+    private static final int[] DCOL = { 0, 1, -1, 1, 1, -1, -1, 0 },
+        DROW = { 1, 1, 1, 0, -1, 0, -1, -1 };
+
+    /** Number of directions of movement. */
+    static final int DIRECTIONS = DCOL.length;
+
+    /** DELTA[D] is the difference between the linearized indices of a
+     *  square and of its neighbor in direction D. */
+    static final int[] DELTA = new int[DIRECTIONS];
+
+    /** Number of squares on the board. */
+    static final int SQUARES = MAX_INDEX + 1;
+
+    /** Mask containing every square. */
+    static final int ALL = (1 << SQUARES) - 1;
+
+    /** NEIGHBORS[K] lists the squares adjacent to K along a line of the
+     *  board (diagonal lines exist only through squares whose row and
+     *  column have the same parity). */
+    static final int[][] NEIGHBORS = new int[SQUARES][];
+
+    /** NEIGHBOR_MASK[K] is the set of squares in NEIGHBORS[K]. */
+    static final int[] NEIGHBOR_MASK = new int[SQUARES];
+
+    /** JUMPS[K] lists the squares on which a jump from K may land;
+     *  JUMPED[K][I] is the square passed over by the jump from K to
+     *  JUMPS[K][I]. */
+    static final int[][] JUMPS = new int[SQUARES][],
+        JUMPED = new int[SQUARES][];
+
+    /** JUMP_SOURCES[D] is the set of squares from which a jump in
+     *  direction D lands on the board. */
+    static final int[] JUMP_SOURCES = new int[DIRECTIONS];
+
+    /** JUMP_MASK[K] is the set of squares in JUMPS[K]. */
+    static final int[] JUMP_MASK = new int[SQUARES];
+
+    /** OVER[K * SQUARES + J] is the square passed over by a jump from K
+     *  to J, or -1 if there is no such jump. */
+    private static final int[] OVER = new int[SQUARES * SQUARES];
+
+    /** DIRECTION[K * SQUARES + J] is the direction from K to J, if J is
+     *  a neighbor of K or a square on which a jump from K may land, and
+     *  -1 otherwise. */
+    private static final int[] DIRECTION = new int[SQUARES * SQUARES];
+
+    /** UPWARD[K] (resp. DOWNWARD[K]) is the set of neighbors of K in the
+     *  row above (resp. below) K: the forward moves for white (resp.
+     *  black) and the backward moves for black (resp. white).
+     *  SIDEWAYS[K] is the set of neighbors of K in its own row. */
+    static final int[] UPWARD = new int[SQUARES],
+        DOWNWARD = new int[SQUARES],
+        SIDEWAYS = new int[SQUARES];
+
+    /** LEFTWARD[K] (resp. RIGHTWARD[K]) is the set containing the square
+     *  immediately left (resp. right) of K, if any. */
+    static final int[] LEFTWARD = new int[SQUARES],
+        RIGHTWARD = new int[SQUARES];
+
+    /** The set of squares in the top (resp. bottom) row: white's (resp.
+     *  black's) last row, on which it may no longer move sideways. */
+    static final int TOP_ROW = ((1 << SIDE) - 1) << (SIDE * (SIDE - 1)),
+        BOTTOM_ROW = (1 << SIDE) - 1;
+
+    static {
+        Arrays.fill(OVER, -1);
+        Arrays.fill(DIRECTION, -1);
+        for (int d = 0; d < DIRECTIONS; d += 1) {
+            DELTA[d] = DROW[d] * SIDE + DCOL[d];
+        }
+        int[] nbuf = new int[DCOL.length], jbuf = new int[DCOL.length],
+            obuf = new int[DCOL.length];
+        for (int k = 0; k < SQUARES; k += 1) {
+            int c = k % SIDE, r = k / SIDE;
+            int nn, nj;
+            nn = nj = 0;
+            for (int d = 0; d < DCOL.length; d += 1) {
+                if (DCOL[d] != 0 && DROW[d] != 0 && (c + r) % 2 != 0) {
+                    continue;
+                }
+                int c1 = c + DCOL[d], r1 = r + DROW[d];
+                if (!onBoard(c1, r1)) {
+                    continue;
+                }
+                int n = r1 * SIDE + c1;
+                nbuf[nn] = n;
+                nn += 1;
+                NEIGHBOR_MASK[k] |= 1 << n;
+                DIRECTION[k * SQUARES + n] = d;
+                if (DROW[d] > 0) {
+                    UPWARD[k] |= 1 << n;
+                } else if (DROW[d] < 0) {
+                    DOWNWARD[k] |= 1 << n;
+                } else if (DCOL[d] > 0) {
+                    SIDEWAYS[k] |= 1 << n;
+                    RIGHTWARD[k] = 1 << n;
+                } else {
+                    SIDEWAYS[k] |= 1 << n;
+                    LEFTWARD[k] = 1 << n;
+                }
+                int c2 = c1 + DCOL[d], r2 = r1 + DROW[d];
+                if (onBoard(c2, r2)) {
+                    int j = r2 * SIDE + c2;
+                    jbuf[nj] = j;
+                    obuf[nj] = n;
+                    nj += 1;
+                    JUMP_MASK[k] |= 1 << j;
+                    OVER[k * SQUARES + j] = n;
+                    DIRECTION[k * SQUARES + j] = d;
+                    JUMP_SOURCES[d] |= 1 << k;
+                }
+            }
+            NEIGHBORS[k] = Arrays.copyOf(nbuf, nn);
+            JUMPS[k] = Arrays.copyOf(jbuf, nj);
+            JUMPED[k] = Arrays.copyOf(obuf, nj);
+        }
+    }
+
+    /** Return true iff column C and row R (both 0-based) lie on the
+     *  board. */
+    private static boolean onBoard(int c, int r) {
+        return 0 <= c && c < SIDE && 0 <= r && r < SIDE;
+    }
+
+    /** Return the square passed over by a jump from FROM to TO, or -1 if
+     *  there is no such jump. */
+    static int jumped(int from, int to) {
+        return OVER[from * SQUARES + to];
+    }
+
+    /** Return the direction from FROM to TO, where TO is a neighbor of
+     *  FROM or a square on which a jump from FROM may land, or -1 if it
+     *  is neither. */
+    static int direction(int from, int to) {
+        return DIRECTION[from * SQUARES + to];
+    }
+
+    /** Return true iff the squares in MASK include square K. */
+    static boolean contains(int mask, int k) {
+        return (mask & (1 << k)) != 0;
+    }
+
+}
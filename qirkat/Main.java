@@ -10,12 +10,15 @@ import java.io.PipedWriter;
 public class Main {
 
     /** Run Qirkat game.  Use display if ARGS[k] is '--display', timing
-     *  if ARGS[k] is "--timing". */
+     *  if ARGS[k] is "--timing".  If ARGS[k] is "--movetime", ARGS[k+1]
+     *  is the number of milliseconds AIs may spend on each move. */
     public static void main(String[] args) {
         boolean useGUI;
+        long moveTime;
         System.out.println("CS61B Qirkat! Version 2.0");
         useGUI = false;
         _timing = false;
+        moveTime = Game.DEFAULT_MOVE_TIME;
         for (int i = 0; i < args.length; i += 1) {
             switch (args[i]) {
             case "--display":
@@ -24,6 +27,15 @@ public class Main {
             case "--timing":
                 _timing = true;
                 break;
+            case "--movetime":
+                i += 1;
+                try {
+                    moveTime = Long.parseLong(args[i]);
+                } catch (NumberFormatException
+                         | ArrayIndexOutOfBoundsException e) {
+                    usage();
+                }
+                break;
             default:
                 usage();
                 break;
@@ -57,13 +69,14 @@ public class Main {
                                              true),
                             new TextReporter());
         }
+        game.setMoveTime(moveTime);
         game.process();
     }
 
     /** Give usage message and exit. */
     static void usage() {
         System.err.println("Usage: java qirkat.Main [--display] [--timing]"
-                           + " [--strict]");
+                           + " [--movetime MSEC] [--strict]");
         System.exit(1);
     }
 
@@ -88,6 +101,19 @@ public class Main {
         }
     }
 
+    /** If timing, report additional statistics about the operation just
+     *  timed, using FORMAT and ARGS as for String.format. */
+    static void reportTiming(String format, Object... args) {
+        if (_timing) {
+            System.err.printf(format, args);
+        }
+    }
+
+    /** Return true iff we are timing. */
+    static boolean timing() {
+        return _timing;
+    }
+
     /** Report total time statistics, if timing. */
     static void reportTotalTimes() {
         if (_timing && _numTimedOps > 0) {
@@ -0,0 +1,16 @@
+package qirkat;
+
+/** An Evaluator that counts material alone, PIECE_VALUE for each piece.
+ *  It is the baseline against which positional evaluators are compared.
+ *  @author Tony Hsu
+ */
+class MaterialEvaluator implements Evaluator {
+
+    @Override
+    public int score(Board board) {
+        return PIECE_VALUE
+            * (Integer.bitCount(board.pieces(PieceColor.WHITE))
+               - Integer.bitCount(board.pieces(PieceColor.BLACK)));
+    }
+
+}
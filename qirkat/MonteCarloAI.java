@@ -0,0 +1,78 @@
+package qirkat;
+
+/**
+ * A Player that computes its own moves by Monte-Carlo tree search (see
+ * MonteCarloTree), rather than by searching to a fixed depth and
+ * evaluating the leaves.  It plays the move tried most often within the
+ * game's time budget per move or, if the game sets one instead, its
+ * budget of playouts per move, using the game's threads.  Its tree is
+ * kept from one move to the next.
+ *
+ * @author Tony Hsu
+ */
+class MonteCarloAI extends Player {
+
+    /**
+     * Size in bytes of one node of a MonteCarloTree.
+     */
+    private static final int NODE_SIZE = 24;
+
+    /**
+     * A new MonteCarloAI for GAME that will play MYCOLOR.
+     */
+    MonteCarloAI(Game game, PieceColor myColor) {
+        super(game, myColor);
+        _tree = new MonteCarloTree((int) Math.min(Integer.MAX_VALUE - 8,
+            (long) game.hashSize() * (1 << 20) / NODE_SIZE));
+    }
+
+    @Override
+    Move myMove() {
+        Main.startTiming();
+        Move move = findMove();
+        Main.endTiming();
+        Main.reportTiming("[mcts: %d playouts (%d kept); %d nodes; "
+                          + "%d threads; win rate %.1f%%]%n",
+                          _tree.rootVisits(), _kept, _tree.size(),
+                          _threads, 100.0 * _tree.bestWinRate());
+        return move;
+    }
+
+    /**
+     * Return a move for me from the current position, assuming there
+     * is a move.
+     */
+    private Move findMove() {
+        Board b = board();
+        long start = System.currentTimeMillis();
+        _tree.setRoot(b);
+        _kept = _tree.rootVisits();
+        _threads = 1;
+
+        long[] moves = new long[Board.MAX_MOVES];
+        if (b.getMoves(moves) == 1) {
+            return MoveCode.toMove(moves[0]);
+        }
+        _threads = Math.max(1, game().threads());
+        long playouts = game().playouts();
+        _tree.search(_threads, start,
+                     playouts > 0 ? Long.MAX_VALUE : game().moveTime(),
+                     playouts, game().nextRandom(Integer.MAX_VALUE));
+        long best = _tree.bestMove();
+        return MoveCode.toMove(best == MoveCode.NONE ? moves[0] : best);
+    }
+
+    /**
+     * My search tree.
+     */
+    private final MonteCarloTree _tree;
+    /**
+     * Number of playouts through the root kept from earlier moves at
+     * the start of the last search.
+     */
+    private int _kept;
+    /**
+     * Number of threads used by the last search.
+     */
+    private int _threads;
+}
@@ -0,0 +1,338 @@
+package qirkat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** A game tree grown by Monte-Carlo tree search.  Each playout descends
+ *  from the root through the tree, choosing at each node the child with
+ *  the greatest upper confidence bound on its winning rate (UCT), adds
+ *  the children of the node it ends at to the tree, plays the game out
+ *  from there with random moves, and credits the result to the nodes it
+ *  passed through.
+ *
+ *  Nodes live in parallel arrays indexed by node number, children of
+ *  a node being consecutive, so that the tree costs a few words per
+ *  node and no objects.  Any number of threads may grow it at once
+ *  without locking: statistics are updated atomically, and a node's
+ *  children are published by a single atomic store once they are
+ *  filled in.  A thread descending through a node counts its visit
+ *  at once, before the result is known, so that until then it counts
+ *  as a loss (a "virtual loss"), steering other threads elsewhere.
+ *
+ *  After each move, the subtree of the new position is kept as the new
+ *  root (see setRoot), so that the playouts that went through it are
+ *  not lost.  The space of the rest of the tree is reclaimed only when
+ *  the tree is started afresh.
+ *  @author Tony Hsu
+ */
+final class MonteCarloTree {
+
+    /** Weight of the exploration term in the upper confidence bound. */
+    static final double EXPLORATION = 1.0;
+
+    /** A new, empty tree with room for CAPACITY nodes. */
+    MonteCarloTree(int capacity) {
+        _capacity = Math.max(capacity, 2 * Board.MAX_MOVES);
+        _moves = new long[_capacity];
+        _children = new int[_capacity];
+        _first = new AtomicIntegerArray(_capacity);
+        _visits = new AtomicIntegerArray(_capacity);
+        _wins = new AtomicIntegerArray(_capacity);
+    }
+
+    /** Make BOARD my root position.  If BOARD is my current root
+     *  position or one reached from it in one or two plies, keep what
+     *  is known about it, unless the tree is more than half full;
+     *  otherwise, start afresh. */
+    void setRoot(Board board) {
+        if (_root >= 0 && _size.get() <= _capacity / 2) {
+            int node = find(_rootBoard, _root, board, 2);
+            if (node >= 0) {
+                _root = node;
+                _rootBoard = new Board(board);
+                return;
+            }
+        }
+        _size.set(0);
+        _root = newNodes(1);
+        _moves[_root] = MoveCode.NONE;
+        _rootBoard = new Board(board);
+    }
+
+    /** Return the node whose position is that on TARGET among NODE,
+     *  whose position is that on BOARD, and the nodes at most PLIES
+     *  plies below it, or -1 if there is none.  BOARD is left as it
+     *  was. */
+    private int find(Board board, int node, Board target, int plies) {
+        if (board.equals(target)) {
+            return node;
+        }
+        int first = _first.get(node);
+        if (plies == 0 || first < 0) {
+            return -1;
+        }
+        for (int c = first; c < first + _children[node]; c += 1) {
+            board.make(_moves[c]);
+            int result = find(board, c, target, plies - 1);
+            board.unmake();
+            if (result >= 0) {
+                return result;
+            }
+        }
+        return -1;
+    }
+
+    /** Run playouts from my root on THREADS threads (at least one),
+     *  until BUDGET milliseconds have passed since START (as from
+     *  System.currentTimeMillis) or, if PLAYOUTS is positive, until
+     *  PLAYOUTS playouts have been run.  However short the time, every
+     *  move from the root is played out at least once, so that there
+     *  is a bestMove() afterwards.  SEED seeds the random choices of
+     *  the playouts. */
+    void search(int threads, long start, long budget, long playouts,
+                long seed) {
+        long deadline =
+            budget < Long.MAX_VALUE - start ? start + budget : Long.MAX_VALUE;
+        AtomicLong tickets = new AtomicLong();
+        long limit = playouts > 0 ? playouts : Long.MAX_VALUE;
+        threads = Math.max(1, threads);
+        ExecutorService pool =
+            threads == 1 ? null : Executors.newFixedThreadPool(threads - 1);
+        try {
+            ArrayList<Future<?>> workers = new ArrayList<>();
+            for (int i = 1; i < threads; i += 1) {
+                SplittableRandom random = new SplittableRandom(seed + i);
+                workers.add(pool.submit(() ->
+                    work(random, tickets, limit, deadline)));
+            }
+            work(new SplittableRandom(seed), tickets, limit, deadline);
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /** Run playouts, choosing moves at random with RANDOM, taking a
+     *  ticket from TICKETS for each, until a ticket numbers LIMIT or
+     *  more or the time is past DEADLINE and every child of my root has
+     *  been visited. */
+    private void work(SplittableRandom random, AtomicLong tickets,
+                      long limit, long deadline) {
+        Board board = new Board(_rootBoard);
+        long[] moves = new long[Board.MAX_MOVES];
+        int[] path = new int[PATH_SIZE];
+        while (tickets.getAndIncrement() < limit
+               && (System.currentTimeMillis() <= deadline
+                   || !rootCovered())) {
+            int plies = 0;
+            int node = _root;
+            _visits.incrementAndGet(node);
+            while (true) {
+                int first = _first.get(node);
+                if (first == UNEXPANDED
+                    && _first.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+                    expand(node, board, moves);
+                    break;
+                } else if (first < 0 || _children[node] == 0) {
+                    break;
+                }
+                node = select(node, first);
+                _visits.incrementAndGet(node);
+                board.make(_moves[node]);
+                if (plies == path.length) {
+                    path = Arrays.copyOf(path, 2 * plies);
+                }
+                path[plies] = node;
+                plies += 1;
+            }
+
+            int played = playout(board, moves, random);
+            PieceColor loser = board.whoseMove();
+            for (int i = 0; i < played; i += 1) {
+                board.unmake();
+            }
+            for (int i = plies - 1; i >= 0; i -= 1) {
+                board.unmake();
+                if (board.whoseMove() != loser) {
+                    _wins.incrementAndGet(path[i]);
+                }
+            }
+        }
+    }
+
+    /** Return true iff my root has been expanded and each of its
+     *  children has been visited. */
+    private boolean rootCovered() {
+        int first = _first.get(_root);
+        if (first < 0) {
+            return first == FULL;
+        }
+        for (int c = first; c < first + _children[_root]; c += 1) {
+            if (_visits.get(c) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Return the child, among those starting at FIRST, of NODE with
+     *  the greatest upper confidence bound, or the first not yet
+     *  visited. */
+    private int select(int node, int first) {
+        double logVisits = Math.log(_visits.get(node));
+        int best = first;
+        double bestBound = Double.NEGATIVE_INFINITY;
+        for (int c = first; c < first + _children[node]; c += 1) {
+            int visits = _visits.get(c);
+            if (visits == 0) {
+                return c;
+            }
+            double bound = (double) _wins.get(c) / visits
+                + EXPLORATION * Math.sqrt(logVisits / visits);
+            if (bound > bestBound) {
+                bestBound = bound;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /** Add the children of NODE, whose position is that on BOARD, to
+     *  the tree, using MOVES as a move buffer, unless the tree is full,
+     *  in which case NODE stays a leaf. */
+    private void expand(int node, Board board, long[] moves) {
+        int n = board.getMoves(moves);
+        int first = newNodes(n);
+        if (first < 0) {
+            _first.set(node, FULL);
+            return;
+        }
+        for (int i = 0; i < n; i += 1) {
+            _moves[first + i] = moves[i];
+        }
+        _children[node] = n;
+        _first.set(node, first);
+    }
+
+    /** Allocate N new, unexpanded nodes with no visits, and return the
+     *  number of the first, or -1 if there is no room. */
+    private int newNodes(int n) {
+        int first = _size.getAndAdd(n);
+        if (first + n > _capacity) {
+            return -1;
+        }
+        for (int c = first; c < first + n; c += 1) {
+            _children[c] = 0;
+            _visits.set(c, 0);
+            _wins.set(c, 0);
+            _first.set(c, UNEXPANDED);
+        }
+        return first;
+    }
+
+    /** Play random moves on BOARD, using MOVES as a move buffer and
+     *  RANDOM to choose, until the game ends, and return their number.
+     *  Of two moves drawn at random, the one capturing more pieces is
+     *  played. */
+    private static int playout(Board board, long[] moves,
+                               SplittableRandom random) {
+        int played = 0;
+        for (int n = board.getMoves(moves); n > 0;
+             n = board.getMoves(moves)) {
+            long mov = moves[random.nextInt(n)];
+            long other = moves[random.nextInt(n)];
+            if (MoveCode.legs(other) > MoveCode.legs(mov)) {
+                mov = other;
+            }
+            board.make(mov);
+            played += 1;
+        }
+        return played;
+    }
+
+    /** Return the code of the move from my root position that has been
+     *  tried most often, or MoveCode.NONE if none has. */
+    long bestMove() {
+        int first = _first.get(_root);
+        long best = MoveCode.NONE;
+        int most = 0;
+        for (int c = first; first >= 0 && c < first + _children[_root];
+             c += 1) {
+            if (_visits.get(c) > most) {
+                most = _visits.get(c);
+                best = _moves[c];
+            }
+        }
+        return best;
+    }
+
+    /** Return the number of playouts that have passed through my
+     *  root. */
+    int rootVisits() {
+        return _root < 0 ? 0 : _visits.get(_root);
+    }
+
+    /** Return the fraction of the playouts through my root that went
+     *  through bestMove() and were won by the player to move. */
+    double bestWinRate() {
+        int first = _first.get(_root);
+        int best = -1;
+        for (int c = first; first >= 0 && c < first + _children[_root];
+             c += 1) {
+            if (best < 0 || _visits.get(c) > _visits.get(best)) {
+                best = c;
+            }
+        }
+        return best < 0 || _visits.get(best) == 0 ? 0.0
+            : (double) _wins.get(best) / _visits.get(best);
+    }
+
+    /** Return the number of nodes in use. */
+    int size() {
+        return Math.min(_size.get(), _capacity);
+    }
+
+    /** Values of _first for a node whose children have not been added,
+     *  are being added, or cannot be added for lack of room. */
+    private static final int UNEXPANDED = -1, EXPANDING = -2, FULL = -3;
+    /** Initial length of the path buffers of playouts. */
+    private static final int PATH_SIZE = 128;
+
+    /** Number of nodes there is room for. */
+    private final int _capacity;
+    /** For each node, the code of the move leading to it from its
+     *  parent. */
+    private final long[] _moves;
+    /** For each expanded node, the number of its children. */
+    private final int[] _children;
+    /** For each node, the number of its first child, or UNEXPANDED,
+     *  EXPANDING, or FULL. */
+    private final AtomicIntegerArray _first;
+    /** For each node, the number of playouts through it. */
+    private final AtomicIntegerArray _visits;
+    /** For each node, the number of playouts through it won by the
+     *  player who moved to it. */
+    private final AtomicIntegerArray _wins;
+    /** Number of nodes allocated (which may exceed _capacity once the
+     *  tree is full). */
+    private final AtomicInteger _size = new AtomicInteger();
+    /** The root node, or -1 before setRoot is first called. */
+    private int _root = -1;
+    /** The position at the root. */
+    private Board _rootBoard;
+
+}
@@ -0,0 +1,91 @@
+package qirkat;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+import static qirkat.Tablebase.*;
+
+/** Tests of the MonteCarloTree class.
+ *  @author Tony Hsu
+ */
+public class MonteCarloTreeTest {
+
+    @Test
+    public void testPlayoutBudget() {
+        MonteCarloTree tree = new MonteCarloTree(100000);
+        Board b = new Board();
+        tree.setRoot(b);
+        assertEquals(0, tree.rootVisits());
+        tree.search(3, System.currentTimeMillis(), Long.MAX_VALUE, 3000, 1);
+        assertEquals(3000, tree.rootVisits());
+        assertTrue(b.isLegal(tree.bestMove()));
+        assertTrue(tree.size() > 1);
+    }
+
+    @Test
+    public void testTimeBudget() {
+        MonteCarloTree tree = new MonteCarloTree(100000);
+        Board b = new Board();
+        long[] moves = new long[Board.MAX_MOVES];
+        int n = b.getMoves(moves);
+        for (int threads = 1; threads <= 3; threads += 2) {
+            tree.setRoot(new Board());
+            tree.search(threads, System.currentTimeMillis(), 0, 0, 1);
+            assertTrue(tree.rootVisits() >= n);
+            assertTrue(b.isLegal(tree.bestMove()));
+            b.setPieces("----- --w-- ----- ----- -b---", PieceColor.WHITE);
+            tree.setRoot(b);
+            tree.search(threads, 0, 0, 0, 1);
+            assertTrue(b.isLegal(tree.bestMove()));
+            b.clear();
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        MonteCarloTree tree = new MonteCarloTree(100000);
+        Board b = new Board();
+        tree.setRoot(b);
+        tree.search(1, System.currentTimeMillis(), Long.MAX_VALUE, 2000, 1);
+        b.make(tree.bestMove());
+        tree.setRoot(b);
+        int kept = tree.rootVisits();
+        assertTrue(kept > 0);
+        tree.search(2, System.currentTimeMillis(), Long.MAX_VALUE, 500, 2);
+        assertEquals(kept + 500, tree.rootVisits());
+        assertTrue(b.isLegal(tree.bestMove()));
+        b.setPieces("----- --w-- ----- ----- -b---", PieceColor.WHITE);
+        tree.setRoot(b);
+        assertEquals(0, tree.rootVisits());
+        assertEquals(MoveCode.NONE, tree.bestMove());
+    }
+
+    @Test
+    public void testFindsWins() throws IOException {
+        File file = File.createTempFile("qirkat", ".tb");
+        file.deleteOnExit();
+        TablebaseBuilder.build(1, file.getPath());
+        Tablebase tb = Tablebase.open(file.getPath());
+        Board b = new Board();
+        long[] moves = new long[Board.MAX_MOVES];
+        int tried = 0;
+        for (long i = 0; i < classSize(1, 1); i += 1) {
+            decode(i, 1, 1, b);
+            if (tb.probe(b) != entry(WIN, 1) || b.getMoves(moves) < 2) {
+                continue;
+            }
+            MonteCarloTree tree = new MonteCarloTree(10000);
+            tree.setRoot(b);
+            tree.search(1, System.currentTimeMillis(), Long.MAX_VALUE,
+                        500, i);
+            b.make(tree.bestMove());
+            assertEquals(entry(LOSS, 0), tb.probe(b));
+            tried += 1;
+        }
+        assertTrue(tried > 0);
+    }
+
+}
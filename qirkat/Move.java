@@ -2,7 +2,7 @@ package qirkat;
 
 import static java.lang.Math.abs;
 import java.util.Formatter;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
@@ -39,23 +39,18 @@ class Move {
      * one. Moves themselves are immutable, and for any possible move,
      * there is exactly one object of type Move. */
 
-    /* To avoid creating Move objects that are not needed, we maintain a
-     * a static variable, _staged containing a Move object.  The move
-     * factory methods then sets the fields of this object before looking to
-     * to see if there is already a Move object with the same parameters.
-     * If there is, the move methods will simply return it, thus allowing
-     * _staged to be reused on the next call without having to create a
-     * new Move object.  Otherwise, we use the _staged object itself as the
-     * new Move, and set the variable to null so that we create a new
-     * Move on the next call to move. There is a drawback: since there
-     * is at most one _staged object at any time, at most one call to move
-     * may execute simultaneously.  Otherwise, two the methods may attempt
-     * to use the same Move object for two different Moves, which clearly
-     * will not work.  Therefore, we indicate in the comments that a number
-     * of the operations are not "thread safe". Fortunately, you'll not run
-     * into this problem as long as you don't do anything fancy (such as
-     * trying to make your AI a parallel program).
-     */
+    /* Any number of threads may call the factory at once.  Single moves
+     * and single jumps (which are all the Moves without a tail) are
+     * created once, when the class is loaded, in the table SINGLES,
+     * indexed by source and destination square, so that asking for one
+     * is an array access.  Multiple jumps are interned in the concurrent
+     * map _internedJumps.  To avoid creating Move objects that are not
+     * needed, each thread keeps a _staged Move object, whose fields the
+     * factory sets before looking to see if there is already a Move with
+     * the same parameters.  If there is, it simply returns it, thus
+     * allowing _staged to be reused on the next call.  Otherwise, it
+     * offers the _staged object itself as the new Move, and, whichever
+     * thread's offer wins, gives the thread a fresh _staged object. */
 
     /** The move constructor, made private to prevent its use except in
      *  this class. */
@@ -65,27 +60,31 @@ class Move {
     /** A factory method that returns a Move from COL0 ROW0 to COL1 ROW1,
      *  followed by NEXTJUMP, if this move is a jump. Assumes the column
      *  and row designations are valid and that NEXTJUMP is null for a
-     *  non-capturing move.  Not thread-safe. */
+     *  non-capturing move. */
     static Move move(char col0, char row0, char col1, char row1,
                      Move nextJump) {
-        if (_staged == null) {
-            _staged = new Move();
+        Move single = SINGLES[index(col0, row0) * SQUARES
+                               + index(col1, row1)];
+        if (nextJump == null) {
+            return single;
         }
-        _staged.set(col0, row0, col1, row1, nextJump);
-        if (_staged.isJump() && nextJump != null && !nextJump.isJump()) {
-            throw new IllegalArgumentException("bad jump");
-        } else if (!_staged.isJump() && nextJump != null) {
+        if (!single.isJump() || !nextJump.isJump()) {
             throw new IllegalArgumentException("bad jump");
         }
-        Move result = _internedMoves.computeIfAbsent(_staged, IDENTITY);
-        if (result == _staged) {
-            _staged = null;
+        Move staged = _staged.get();
+        staged.set(col0, row0, col1, row1, nextJump);
+        Move result = _internedJumps.get(staged);
+        if (result == null) {
+            result = _internedJumps.putIfAbsent(staged, staged);
+            if (result == null) {
+                result = staged;
+            }
+            _staged.set(new Move());
         }
         return result;
     }
 
-    /** Return a single move or jump from (COL0, ROW0) to (COL1, ROW1).
-     *  Not thread-safe. */
+    /** Return a single move or jump from (COL0, ROW0) to (COL1, ROW1). */
     static Move move(char col0, char row0, char col1, char row1) {
         return move(col0, row0, col1, row1, null);
     }
@@ -349,13 +348,34 @@ class Move {
 
     /* Used for the Move factory. */
 
-    /** Holds the next Move object to be added to _internedMoves.
-     *  The factory method move tentatively fills it in, and then returns
-     *  it if it is unique (resetting _staged to null). */
-    private static Move _staged;
+    /** Number of squares on the board. */
+    private static final int SQUARES = MAX_INDEX + 1;
+
+    /** SINGLES[K * SQUARES + J] is the Move from the square with
+     *  linearized index K to that with index J, with no further jumps.
+     *  Vestigial moves are those with K == J. */
+    private static final Move[] SINGLES = new Move[SQUARES * SQUARES];
+
+    static {
+        for (int k = 0; k < SQUARES; k += 1) {
+            for (int j = 0; j < SQUARES; j += 1) {
+                Move mov = new Move();
+                mov.set(col(k), row(k), col(j), row(j), null);
+                SINGLES[k * SQUARES + j] = mov;
+            }
+        }
+    }
+
+    /** For each thread, the next Move object to be added to
+     *  _internedJumps.  The factory method move tentatively fills it in,
+     *  and then returns it if it is unique (replacing it with a new
+     *  object). */
+    private static final ThreadLocal<Move> _staged =
+        ThreadLocal.withInitial(Move::new);
 
-    /** The set of all distinct moves generated so far. */
-    private static HashMap<Move, Move> _internedMoves = new HashMap<>();
+    /** The set of all distinct multiple jumps generated so far. */
+    private static final ConcurrentHashMap<Move, Move> _internedJumps =
+        new ConcurrentHashMap<>();
 
     /** The identity function on Moves. */
     static final Function<Move, Move> IDENTITY = k -> k;
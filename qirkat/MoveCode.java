@@ -0,0 +1,170 @@
+package qirkat;
+
+import java.util.Formatter;
+
+import static qirkat.Move.*;
+import static qirkat.Geometry.*;
+
+/** Moves encoded as primitive longs ("move codes"), for use where Move
+ *  objects would cost too much: in the move generator and the searches.
+ *  A move code records the source square, the final destination square,
+ *  and, for a jump, the number of legs and the direction (as numbered in
+ *  Geometry) of each leg, from which its landing squares follow.  Each
+ *  distinct move has exactly one code, so codes may be compared with ==.
+ *  No valid move has the code NONE.
+ *
+ *  Conversion to and from Move is provided for the boundaries of the
+ *  search (Player.myMove) and for parsing and printing.
+ *  @author Tony Hsu
+ */
+final class MoveCode {
+
+    /** Not instantiable. */
+    private MoveCode() {
+    }
+
+    /** A code that denotes no move (that of the vestigial move a1,
+     *  which is never generated). */
+    static final long NONE = 0;
+
+    /** Layout of a move code: bits 0-4 hold the source square, 5-9 the
+     *  final destination, 10-14 the number of jump legs (0 for a
+     *  non-capturing move), and each following group of 3 bits the
+     *  direction of one leg, first leg lowest. */
+    private static final int
+        FROM_SHIFT = 0, TO_SHIFT = 5, LEGS_SHIFT = 10, DIRS_SHIFT = 15,
+        SQUARE_MASK = 0x1f, LEGS_MASK = 0x1f, DIR_BITS = 3, DIR_MASK = 0x7;
+
+    /** Largest number of legs a jump may have.  A jump captures a
+     *  different piece on each leg, and the squares any one piece can
+     *  jump over number 16, which is just this. */
+    static final int MAX_LEGS = (Long.SIZE - DIRS_SHIFT) / DIR_BITS;
+
+    /** Return the code for the non-capturing move from FROM to TO. */
+    static long quiet(int from, int to) {
+        return (from << FROM_SHIFT) | (to << TO_SHIFT);
+    }
+
+    /** Return the code for the single jump from FROM to TO, which must
+     *  be a square on which a jump from FROM may land. */
+    static long jump(int from, int to) {
+        return extend(quiet(from, from), to);
+    }
+
+    /** Return the code for the jump CODE (or the vestigial move
+     *  quiet(K, K), where K is the square on which CODE ends) followed
+     *  by a further jump leg to TO. */
+    static long extend(long code, int to) {
+        int legs = legs(code);
+        int dir = direction(to(code), to);
+        assert dir >= 0 && legs < MAX_LEGS;
+        return (code & ~((long) SQUARE_MASK << TO_SHIFT
+                         | (long) LEGS_MASK << LEGS_SHIFT))
+            | ((long) to << TO_SHIFT)
+            | ((long) (legs + 1) << LEGS_SHIFT)
+            | ((long) dir << (DIRS_SHIFT + DIR_BITS * legs));
+    }
+
+    /** Return the source square of CODE. */
+    static int from(long code) {
+        return (int) (code >>> FROM_SHIFT) & SQUARE_MASK;
+    }
+
+    /** Return the final destination square of CODE. */
+    static int to(long code) {
+        return (int) (code >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /** Return the number of jump legs in CODE (0 for a non-capturing
+     *  move). */
+    static int legs(long code) {
+        return (int) (code >>> LEGS_SHIFT) & LEGS_MASK;
+    }
+
+    /** Return true iff CODE is a capturing move. */
+    static boolean isJump(long code) {
+        return legs(code) != 0;
+    }
+
+    /** Return the direction of leg I (numbering from 0) of the jump
+     *  CODE. */
+    static int legDirection(long code, int i) {
+        return (int) (code >>> (DIRS_SHIFT + DIR_BITS * i)) & DIR_MASK;
+    }
+
+    /** Return the set of squares (as a bit mask) of the pieces captured
+     *  by CODE. */
+    static int captured(long code) {
+        int result = 0;
+        int sq = from(code);
+        for (int i = legs(code) - 1; i >= 0; i -= 1) {
+            int delta = DELTA[(int) (code >>> DIRS_SHIFT) & DIR_MASK];
+            result |= 1 << (sq + delta);
+            sq += 2 * delta;
+            code >>>= DIR_BITS;
+        }
+        return result;
+    }
+
+    /** Return the code for MOV, which must be a non-vestigial move whose
+     *  legs lie along lines of the board, or NONE if MOV is null. */
+    static long encode(Move mov) {
+        if (mov == null) {
+            return NONE;
+        }
+        if (!mov.isJump()) {
+            return quiet(mov.fromIndex(), mov.toIndex());
+        }
+        long code = quiet(mov.fromIndex(), mov.fromIndex());
+        for (; mov != null; mov = mov.jumpTail()) {
+            code = extend(code, mov.toIndex());
+        }
+        return code;
+    }
+
+    /** Return the Move denoted by CODE, or null if CODE is NONE. */
+    static Move toMove(long code) {
+        if (code == NONE) {
+            return null;
+        }
+        int from = from(code), to = to(code);
+        int legs = legs(code);
+        if (legs == 0) {
+            return move(col(from), row(from), col(to), row(to));
+        }
+        int[] landings = new int[legs + 1];
+        landings[0] = from;
+        for (int i = 0; i < legs; i += 1) {
+            landings[i + 1] = landings[i] + 2 * DELTA[legDirection(code, i)];
+        }
+        Move result = null;
+        for (int i = legs - 1; i >= 0; i -= 1) {
+            int k = landings[i], j = landings[i + 1];
+            result = move(col(k), row(k), col(j), row(j), result);
+        }
+        return result;
+    }
+
+    /** Return the code of the move denoted by STR, as for
+     *  Move.parseMove. */
+    static long parse(String str) {
+        return encode(parseMove(str));
+    }
+
+    /** Return the standard denotation of CODE, as for Move.toString. */
+    static String toString(long code) {
+        Formatter out = new Formatter();
+        int sq = from(code);
+        out.format("%s%s", col(sq), row(sq));
+        if (!isJump(code)) {
+            sq = to(code);
+            out.format("-%s%s", col(sq), row(sq));
+        }
+        for (int i = 0; i < legs(code); i += 1) {
+            sq += 2 * DELTA[legDirection(code, i)];
+            out.format("-%s%s", col(sq), row(sq));
+        }
+        return out.toString();
+    }
+
+}
@@ -0,0 +1,174 @@
+package qirkat;
+
+/** Supplies the moves of a position to a search one at a time, generating
+ *  them in stages, each only when the moves of the previous stages have
+ *  all been tried: first the hash move (the best move recorded for the
+ *  position in a transposition table), then the captures, and then, if
+ *  there were no captures, the killer moves (non-capturing moves that
+ *  caused cutoffs in sibling positions) and the other non-capturing
+ *  moves, best history score first.  Since a search often cuts off after
+ *  its first move or two, the later stages are frequently never generated
+ *  at all.
+ *
+ *  A MovePicker owns its move buffer and is reused for every position
+ *  searched at one ply, so picking moves does not allocate.
+ *  @author Tony Hsu
+ */
+class MovePicker {
+
+    /** Stages of picking: the GEN_... stages generate the moves that
+     *  the following stage returns. */
+    private static final int
+        HASH = 0, GEN_CAPTURES = 1, CAPTURES = 2, KILLER0 = 3, KILLER1 = 4,
+        GEN_QUIETS = 5, QUIETS = 6, DONE = 7;
+
+    /** A MovePicker that orders non-capturing moves by their entries in
+     *  HISTORY, a butterfly table indexed by from * SQUARES + to (see
+     *  Searcher), or leaves them in the order generated if HISTORY is
+     *  null. */
+    MovePicker(int[] history) {
+        _history = history;
+    }
+
+    /** Start picking the moves of BOARD, whose hash move is HASHMOVE and
+     *  whose killer moves are KILLER0 and KILLER1 (any of which may be
+     *  illegal, or MoveCode.NONE).  BOARD must not change, except
+     *  temporarily, while its moves are being picked. */
+    void reset(Board board, long hashMove, long killer0, long killer1) {
+        _board = board;
+        _hashMove = hashMove;
+        _killer0 = killer0;
+        _killer1 = killer1;
+        _stage = HASH;
+        _count = _next = 0;
+    }
+
+    /** Start picking the moves of BOARD, whose hash move is HASHMOVE,
+     *  with no killer moves. */
+    void reset(Board board, long hashMove) {
+        reset(board, hashMove, MoveCode.NONE, MoveCode.NONE);
+    }
+
+    /** Return the next move to try, or MoveCode.NONE if there are no
+     *  more.  Each legal move is returned exactly once. */
+    long next() {
+        while (true) {
+            switch (_stage) {
+            case HASH:
+                _stage = GEN_CAPTURES;
+                if (_board.isLegal(_hashMove)) {
+                    return _hashMove;
+                }
+                _hashMove = MoveCode.NONE;
+                break;
+            case GEN_CAPTURES:
+                _count = _board.gameOver() ? 0 : _board.getJumps(_moves);
+                _next = 0;
+                _stage = CAPTURES;
+                break;
+            case CAPTURES:
+                if (_next < _count) {
+                    long mov = _moves[_next];
+                    _next += 1;
+                    if (mov != _hashMove) {
+                        return mov;
+                    }
+                } else if (_count > 0 || _board.gameOver()) {
+                    _stage = DONE;
+                } else {
+                    _stage = KILLER0;
+                }
+                break;
+            case KILLER0:
+                _stage = KILLER1;
+                if (_killer0 != _hashMove && _board.isLegal(_killer0)) {
+                    return _killer0;
+                }
+                _killer0 = MoveCode.NONE;
+                break;
+            case KILLER1:
+                _stage = GEN_QUIETS;
+                if (_killer1 != _hashMove && _killer1 != _killer0
+                    && _board.isLegal(_killer1)) {
+                    return _killer1;
+                }
+                _killer1 = MoveCode.NONE;
+                break;
+            case GEN_QUIETS:
+                _count = _board.getQuietMoves(_moves);
+                _next = 0;
+                _stage = QUIETS;
+                if (_history != null) {
+                    for (int i = 0; i < _count; i += 1) {
+                        _scores[i] = _history[MoveCode.from(_moves[i])
+                                              * SQUARES
+                                              + MoveCode.to(_moves[i])];
+                    }
+                }
+                break;
+            case QUIETS:
+                if (_next < _count) {
+                    if (_history != null) {
+                        selectBest();
+                    }
+                    long mov = _moves[_next];
+                    _next += 1;
+                    if (mov != _hashMove && mov != _killer0
+                        && mov != _killer1) {
+                        return mov;
+                    }
+                } else {
+                    _stage = DONE;
+                }
+                break;
+            default:
+                return MoveCode.NONE;
+            }
+        }
+    }
+
+    /** Move the remaining move with the highest score to _moves[_next],
+     *  keeping _scores in step with _moves.  Moves with equal scores keep
+     *  their generated order. */
+    private void selectBest() {
+        int best = _next;
+        for (int i = _next + 1; i < _count; i += 1) {
+            if (_scores[i] > _scores[best]) {
+                best = i;
+            }
+        }
+        if (best != _next) {
+            long mov = _moves[best];
+            int score = _scores[best];
+            System.arraycopy(_moves, _next, _moves, _next + 1, best - _next);
+            System.arraycopy(_scores, _next, _scores, _next + 1,
+                             best - _next);
+            _moves[_next] = mov;
+            _scores[_next] = score;
+        }
+    }
+
+    /** Number of squares on the board. */
+    static final int SQUARES = Move.MAX_INDEX + 1;
+
+    /** The position whose moves I am picking. */
+    private Board _board;
+    /** The hash move, or MoveCode.NONE if there is none (or it is not
+     *  legal). */
+    private long _hashMove;
+    /** The killer moves, or MoveCode.NONE for those that are absent,
+     *  illegal, or duplicates. */
+    private long _killer0, _killer1;
+    /** History scores of non-capturing moves, or null if they are not to
+     *  be sorted. */
+    private final int[] _history;
+    /** The current stage. */
+    private int _stage;
+    /** The moves of the current stage are _moves[0 .. _count-1], of which
+     *  those before _next have been returned. */
+    private int _count, _next;
+    /** Buffer holding the moves of the current stage. */
+    private final long[] _moves = new long[Board.MAX_MOVES];
+    /** History scores of the non-capturing moves in _moves. */
+    private final int[] _scores = new int[Board.MAX_MOVES];
+}
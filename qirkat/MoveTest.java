@@ -98,6 +98,54 @@ public class MoveTest {
         assertEquals(m.toString(), "a1-c3");
     }
 
+    @Test
+    public void testMoveCodes() {
+        String[] moves = { "a3-b2", "c3-b3", "a3-a5", "a1-c3-e5-c5-a5",
+                           "a3-c5-c3-a3" };
+        for (String str : moves) {
+            long code = MoveCode.parse(str);
+            assertEquals(str, MoveCode.toString(code));
+            assertEquals(parseMove(str), MoveCode.toMove(code));
+            assertEquals(parseMove(str).isJump(), MoveCode.isJump(code));
+        }
+        long code = MoveCode.parse("a1-c3-e5-c5");
+        assertEquals(index('a', '1'), MoveCode.from(code));
+        assertEquals(index('c', '5'), MoveCode.to(code));
+        assertEquals(3, MoveCode.legs(code));
+        assertEquals((1 << index('b', '2')) | (1 << index('d', '4'))
+                     | (1 << index('d', '5')), MoveCode.captured(code));
+        assertEquals(code, MoveCode.extend(MoveCode.parse("a1-c3-e5"),
+                                           index('c', '5')));
+    }
+
+    @Test
+    public void testConcurrentInterning() throws InterruptedException {
+        String[] jumps = { "a1-c3-c5", "a1-c3-e5-c5-a5", "e1-c1-c3-a3",
+                           "a3-a5-c3-e1" };
+        Move[][] found = new Move[4][jumps.length];
+        Thread[] threads = new Thread[found.length];
+        for (int t = 0; t < threads.length; t += 1) {
+            Move[] mine = found[t];
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < mine.length; i += 1) {
+                    mine[i] = parseMove(jumps[i]);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < jumps.length; i += 1) {
+            Move m = parseMove(jumps[i]);
+            assertEquals(jumps[i], m.toString());
+            for (Move[] mine : found) {
+                assertTrue("moves not interned", mine[i] == m);
+            }
+        }
+        assertTrue(move('b', '2', 'c', '3') == parseMove("b2-c3"));
+    }
+
 
 
 
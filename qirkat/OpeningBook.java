@@ -0,0 +1,99 @@
+package qirkat;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/** An opening book: for each of a set of positions near the start of
+ *  the game, a few good moves, ranked and weighted, read from a file
+ *  written by OpeningBookBuilder.  The file is memory-mapped and
+ *  searched in place, so that opening it costs nothing, however large
+ *  it is, and one OpeningBook may be consulted by any number of threads.
+ *
+ *  The file holds a header (MAGIC and the number of records) followed
+ *  by records of RECORD_SIZE bytes, each holding the Zobrist key (see
+ *  Board.key) of a position, the code (see MoveCode) of one of its book
+ *  moves, and that move's weight.  Records are sorted by key, and those
+ *  for the same position by decreasing weight.
+ *  @author Tony Hsu
+ */
+final class OpeningBook {
+
+    /** First word of an opening book file. */
+    static final int MAGIC = 0x514f4231;
+    /** Size in bytes of the file header. */
+    static final int HEADER_SIZE = 8;
+    /** Size in bytes of a record. */
+    static final int RECORD_SIZE = 20;
+
+    /** Return the opening book in the file named FILENAME. */
+    static OpeningBook open(String fileName) throws IOException {
+        try (FileChannel channel =
+             FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            MappedByteBuffer data =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+                throw new IOException("not an opening book file");
+            }
+            int size = data.getInt(4);
+            if (size < 0 || data.capacity()
+                != HEADER_SIZE + (long) size * RECORD_SIZE) {
+                throw new IOException("corrupt opening book file");
+            }
+            return new OpeningBook(data, size);
+        }
+    }
+
+    /** An opening book with SIZE records, whose contents (including the
+     *  header) are DATA. */
+    private OpeningBook(MappedByteBuffer data, int size) {
+        _data = data;
+        _size = size;
+    }
+
+    /** Return the number of records in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Store the codes of my moves for BOARD, best first, in MOVES, and
+     *  their weights in WEIGHTS, and return how many there are (0 if
+     *  BOARD is not in the book).  Moves that are not legal in BOARD
+     *  (which can only arise if another position has the same key) are
+     *  left out. */
+    int lookup(Board board, long[] moves, int[] weights) {
+        long key = board.key();
+        int lo = 0, hi = _size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key(mid) < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        int n = 0;
+        for (int i = lo; i < _size && key(i) == key; i += 1) {
+            long mov = _data.getLong(HEADER_SIZE + i * RECORD_SIZE + 8);
+            if (n < moves.length && board.isLegal(mov)) {
+                moves[n] = mov;
+                weights[n] = _data.getInt(HEADER_SIZE + i * RECORD_SIZE + 16);
+                n += 1;
+            }
+        }
+        return n;
+    }
+
+    /** Return the key in record I. */
+    private long key(int i) {
+        return _data.getLong(HEADER_SIZE + i * RECORD_SIZE);
+    }
+
+    /** The file's contents. */
+    private final MappedByteBuffer _data;
+    /** Number of records. */
+    private final int _size;
+
+}
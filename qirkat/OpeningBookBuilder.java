@@ -0,0 +1,136 @@
+package qirkat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+
+import static qirkat.PieceColor.*;
+import static qirkat.OpeningBook.*;
+
+/** Generates the opening book files read by OpeningBook.  Run as
+ *
+ *      java qirkat.OpeningBookBuilder PLIES DEPTH FILE
+ *
+ *  to search every position reached from the start of the game by at
+ *  most PLIES book moves, each move of each position to depth DEPTH,
+ *  and write the results to FILE.  A move goes into the book if its
+ *  value is within MARGIN of the best, its weight being greater the
+ *  nearer it is; at most MAX_MOVES moves are kept per position.
+ *  @author Tony Hsu
+ */
+final class OpeningBookBuilder {
+
+    /** Not instantiable. */
+    private OpeningBookBuilder() {
+    }
+
+    /** Write the opening book described by ARGS (see above). */
+    public static void main(String... args) {
+        if (args.length != 3 || !args[0].matches("\\d+")
+            || !args[1].matches("\\d+")
+            || Integer.parseInt(args[1]) < 1
+            || Integer.parseInt(args[1]) > Searcher.MAX_DEPTH) {
+            System.err.printf("Usage: java qirkat.OpeningBookBuilder"
+                              + " PLIES DEPTH FILE (DEPTH <= %d)%n",
+                              Searcher.MAX_DEPTH);
+            System.exit(1);
+        }
+        try {
+            long start = System.currentTimeMillis();
+            int n = build(Integer.parseInt(args[0]),
+                          Integer.parseInt(args[1]), args[2]);
+            System.err.printf("[%d positions; %d msec]%n", n,
+                              System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            System.err.printf("Error writing %s: %s%n", args[2],
+                              e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Write the opening book covering positions up to PLIES plies from
+     *  the start of the game, searched to depth DEPTH, to the file named
+     *  FILENAME, and return the number of positions in it. */
+    static int build(int plies, int depth, String fileName)
+        throws IOException {
+        ArrayList<long[]> records = new ArrayList<>();
+        HashSet<Long> seen = new HashSet<>();
+        TranspositionTable table = new TranspositionTable(TABLE_SIZE);
+        expand(new Board(), plies, depth, table, seen, records);
+        records.sort(Comparator.<long[]>comparingLong(r -> r[0])
+                     .thenComparing(r -> -r[2]));
+        try (DataOutputStream out =
+             new DataOutputStream(new BufferedOutputStream(
+                 new FileOutputStream(fileName)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(records.size());
+            for (long[] r : records) {
+                out.writeLong(r[0]);
+                out.writeLong(r[1]);
+                out.writeInt((int) r[2]);
+            }
+        }
+        return seen.size();
+    }
+
+    /** Add to RECORDS (as {key, move, weight}) the book moves of BOARD
+     *  and of the positions reached from it by at most PLIES - 1 further
+     *  book moves, searching each move to DEPTH with the aid of TABLE.
+     *  Positions whose keys are in SEEN have already been added; add the
+     *  others' keys to SEEN. */
+    private static void expand(Board board, int plies, int depth,
+                               TranspositionTable table, HashSet<Long> seen,
+                               ArrayList<long[]> records) {
+        if (plies == 0 || !seen.add(board.key())) {
+            return;
+        }
+        long[] moves = new long[Board.MAX_MOVES];
+        int n = board.getMoves(moves);
+        long[] values = new long[n];
+        int sense = board.whoseMove() == WHITE ? 1 : -1;
+        long best = n == 1 ? 0 : Long.MIN_VALUE;
+        for (int i = 0; i < n && n > 1; i += 1) {
+            board.make(moves[i]);
+            Searcher searcher = new Searcher(board, table, 1);
+            searcher.setClock(System.currentTimeMillis(), Long.MAX_VALUE);
+            searcher.setMaxDepth(Math.max(1, depth - 1));
+            searcher.run();
+            board.unmake();
+            values[i] = (long) sense * searcher.value();
+            best = Math.max(best, values[i]);
+        }
+        for (int kept = 0; kept < Math.min(n, MAX_MOVES); kept += 1) {
+            int k = kept;
+            for (int i = kept + 1; i < n; i += 1) {
+                if (values[i] > values[k]) {
+                    k = i;
+                }
+            }
+            if (values[k] < best - MARGIN) {
+                break;
+            }
+            long mov = moves[k], value = values[k];
+            moves[k] = moves[kept];
+            values[k] = values[kept];
+            records.add(new long[] {
+                board.key(), mov, MARGIN + 1 - (best - value)
+            });
+            board.make(mov);
+            expand(board, plies - 1, depth, table, seen, records);
+            board.unmake();
+        }
+    }
+
+    /** Largest amount by which a book move's value may fall short of the
+     *  best. */
+    static final int MARGIN = Evaluator.PIECE_VALUE / 4;
+    /** Largest number of book moves per position. */
+    static final int MAX_MOVES = 3;
+    /** Size of the transposition table, in megabytes. */
+    private static final int TABLE_SIZE = 64;
+
+}
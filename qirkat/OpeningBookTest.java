@@ -0,0 +1,56 @@
+package qirkat;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/** Tests of the OpeningBook and OpeningBookBuilder classes.
+ *  @author Tony Hsu
+ */
+public class OpeningBookTest {
+
+    /** Return the name of a new temporary file, deleted on exit. */
+    private static String tempFile() throws IOException {
+        File file = File.createTempFile("qirkat", ".book");
+        file.deleteOnExit();
+        return file.getPath();
+    }
+
+    @Test
+    public void testLookup() throws IOException {
+        String name = tempFile();
+        int positions = OpeningBookBuilder.build(2, 3, name);
+        OpeningBook book = OpeningBook.open(name);
+        assertTrue(book.size() >= positions);
+        long[] moves = new long[Board.MAX_MOVES];
+        int[] weights = new int[Board.MAX_MOVES];
+        Board b = new Board();
+        int n = book.lookup(b, moves, weights);
+        assertTrue(n >= 1 && n <= OpeningBookBuilder.MAX_MOVES);
+        for (int i = 0; i < n; i += 1) {
+            assertTrue(b.isLegal(moves[i]));
+            assertTrue(weights[i] >= 1
+                       && weights[i] <= OpeningBookBuilder.MARGIN + 1);
+            assertTrue(i == 0 || weights[i] <= weights[i - 1]);
+        }
+        b.make(moves[0]);
+        int n1 = book.lookup(b, moves, weights);
+        assertTrue(n1 >= 1);
+        b.make(moves[0]);
+        assertEquals(0, book.lookup(b, moves, weights));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotABook() throws IOException {
+        String name = tempFile();
+        try (FileWriter out = new FileWriter(name)) {
+            out.write("auto white\n");
+        }
+        OpeningBook.open(name);
+    }
+
+}
@@ -0,0 +1,399 @@
+package qirkat;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import static qirkat.PieceColor.*;
+
+/**
+ * A Player that computes its own moves by splitting the game tree among
+ * the threads of a ForkJoinPool ("young brothers wait").  At each node
+ * far enough from the leaves, the first child is searched alone to
+ * establish a bound; the remaining children (its younger brothers) are
+ * then searched as parallel tasks with that bound, and are cancelled as
+ * soon as one of them produces a cutoff.
+ *
+ * Each task works on its own copy of the position and the windows given
+ * to younger brothers do not depend on the order in which they finish,
+ * so the move chosen at a given depth is the same however many threads
+ * search, and is the same as that found by the serial version of the
+ * search.
+ *
+ * @author Tony Hsu
+ */
+class ParallelAI extends Player {
+
+    /**
+     * Least remaining depth at which a node's children are searched in
+     * parallel.  Smaller subtrees are searched serially by one task,
+     * except at the root, which must record its best move.
+     */
+    static final int SPLIT_DEPTH = 3;
+
+    /**
+     * A new ParallelAI for GAME that will play MYCOLOR.
+     */
+    ParallelAI(Game game, PieceColor myColor) {
+        super(game, myColor);
+        _evaluator = game.evaluator();
+    }
+
+    @Override
+    Move myMove() {
+        int threads = Math.max(1, game().threads());
+        Main.startTiming();
+        Move move = findMove(threads, game().moveTime(), Searcher.MAX_DEPTH);
+        Main.endTiming();
+        if (Main.timing() && _depth > 0) {
+            int depth = _depth;
+            long nodes = _iterationNodes, time = _iterationTime;
+            findMove(0, Long.MAX_VALUE, depth);
+            Main.reportTiming("[ybw: depth %d; %d nodes in %d msec; "
+                              + "%d threads; serially %d nodes in %d "
+                              + "msec, %.2fx speedup]%n", depth, nodes,
+                              time, threads, _iterationNodes,
+                              _iterationTime,
+                              (double) Math.max(1, _iterationTime)
+                              / Math.max(1, time));
+        }
+        return move;
+    }
+
+    /**
+     * Return a move for me from the current position, assuming there is
+     * a move.  Deepen iteratively, up to depth MAXDEPTH and for about
+     * BUDGET milliseconds, using THREADS threads, or searching serially
+     * on the calling thread if THREADS is 0.  Afterwards, depth() and
+     * value() describe the last iteration that finished.  With
+     * --timing, myMove repeats that iteration serially, after the move
+     * is chosen and outside the time reported for it, and reports the
+     * speedup of the parallel iteration over the serial one.
+     */
+    Move findMove(int threads, long budget, int maxDepth) {
+        Board b = new Board(board());
+        b.setEvaluator(_evaluator);
+        int sense = b.whoseMove() == WHITE ? 1 : -1;
+        long[] moves = new long[Board.MAX_MOVES];
+        int n = b.getMoves(moves);
+        long best = moves[0];
+        _nodes.reset();
+        _depth = _value = 0;
+        if (n == 1) {
+            return MoveCode.toMove(best);
+        }
+
+        ForkJoinPool pool = threads == 0 ? null : new ForkJoinPool(threads);
+        long start = System.currentTimeMillis();
+        _deadline = Long.MAX_VALUE;
+        _stopped = false;
+        _serial = pool == null;
+        try {
+            for (int depth = 1; depth <= maxDepth; depth += 1) {
+                long iterationStart = System.currentTimeMillis();
+                _nodes.reset();
+                Node root = new Node(b, depth, -INFTY, INFTY, sense, null);
+                if (pool == null) {
+                    root.compute();
+                } else {
+                    pool.invoke(root);
+                }
+                if (!root._complete) {
+                    break;
+                }
+                if (root._best != MoveCode.NONE) {
+                    best = root._best;
+                }
+                _depth = depth;
+                _value = root._value;
+                _iterationNodes = _nodes.sum();
+                _iterationTime = System.currentTimeMillis() - iterationStart;
+                _deadline = budget < Long.MAX_VALUE - start
+                    ? start + budget : Long.MAX_VALUE;
+                long elapsed = System.currentTimeMillis() - start;
+                if (Math.abs(root._value) == INFTY || 2 * elapsed > budget) {
+                    break;
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        return MoveCode.toMove(best);
+    }
+
+    /**
+     * Return the depth of the last completed iteration of the last
+     * search (0 if none).
+     */
+    int depth() {
+        return _depth;
+    }
+
+    /**
+     * Return the value found by the last completed iteration of the last
+     * search.
+     */
+    int value() {
+        return _value;
+    }
+
+    /**
+     * A magnitude greater than a normal value.
+     */
+    private static final int INFTY = Searcher.INFTY;
+
+    /**
+     * The evaluation function applied at the leaves.
+     */
+    private final Evaluator _evaluator;
+
+    /**
+     * For each thread, move buffers for serial searches, indexed by
+     * remaining depth.
+     */
+    private static final ThreadLocal<long[][]> BUFFERS =
+        ThreadLocal.withInitial(() -> new long[SPLIT_DEPTH][Board.MAX_MOVES]);
+
+    /**
+     * The search of one position with the window (ALPHA, BETA), as a
+     * task.  After it runs, _complete is true iff the search finished
+     * (rather than being cancelled), in which case _value is its value
+     * and _best its best move.
+     */
+    private class Node extends RecursiveAction {
+
+        /**
+         * Version of the (unused) serialized form of RecursiveActions.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * A search of BOARD to DEPTH, with the window (ALPHA, BETA), for
+         * the player indicated by SENSE (as for Searcher).  PARENT is
+         * the node being searched when this one was created, or null at
+         * the root.  The node takes over BOARD for the duration of the
+         * search, and leaves it as it found it.
+         */
+        Node(Board board, int depth, int alpha, int beta, int sense,
+             Node parent) {
+            _board = board;
+            _depth = depth;
+            _alpha = alpha;
+            _beta = beta;
+            _sense = sense;
+            _parent = parent;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled()) {
+                return;
+            }
+            _nodes.increment();
+            if ((_depth < SPLIT_DEPTH && _parent != null)
+                || _board.gameOver()) {
+                finish(serial(_board, _depth, _alpha, _beta, _sense));
+                return;
+            }
+
+            long[] moves = new long[Board.MAX_MOVES];
+            int n = _board.getMoves(moves);
+            if (n == 0) {
+                finish(_sense == 1 ? -INFTY : INFTY);
+                return;
+            }
+            int alpha = _alpha, beta = _beta;
+            _board.make(moves[0]);
+            Node eldest = new Node(_board, _depth - 1, alpha, beta, -_sense,
+                                   this);
+            eldest.compute();
+            _board.unmake();
+            if (!eldest._complete) {
+                return;
+            }
+            int value = eldest._value;
+            _best = moves[0];
+            if (_cutoff) {
+                finish(value);
+                return;
+            }
+            if (_sense == 1) {
+                alpha = Math.max(alpha, value);
+            } else {
+                beta = Math.min(beta, value);
+            }
+
+            Node[] younger = new Node[n - 1];
+            for (int i = 0; i < younger.length; i += 1) {
+                Board next = new Board(_board);
+                next.make(moves[i + 1]);
+                younger[i] = new Node(next, _depth - 1, alpha, beta,
+                                      -_sense, this);
+            }
+            if (_serial) {
+                for (Node child : younger) {
+                    child.compute();
+                }
+            } else {
+                invokeAll(younger);
+            }
+
+            if (cancelled()) {
+                return;
+            }
+            for (int i = 0; i < younger.length; i += 1) {
+                Node child = younger[i];
+                if (child._complete && better(child._value, value)) {
+                    value = child._value;
+                    _best = moves[i + 1];
+                }
+            }
+            finish(value);
+        }
+
+        /**
+         * Record that my search has finished with value VALUE, and tell
+         * my parent, whose other children may stop if VALUE is outside
+         * its window.
+         */
+        void finish(int value) {
+            _value = value;
+            _complete = true;
+            if (_parent != null
+                && (_parent._sense == 1 ? value >= _parent._beta
+                    : value <= _parent._alpha)) {
+                _parent._cutoff = true;
+            }
+        }
+
+        /**
+         * Return true iff the search is out of time or some node above
+         * me has had a cutoff, so that my result is no longer needed.
+         */
+        boolean cancelled() {
+            if (_stopped) {
+                return true;
+            }
+            if (System.currentTimeMillis() > _deadline) {
+                _stopped = true;
+                return true;
+            }
+            for (Node n = _parent; n != null; n = n._parent) {
+                if (n._cutoff) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Return true iff VALUE is strictly better than OLD for me.
+         */
+        boolean better(int value, int old) {
+            return _sense == 1 ? value > old : value < old;
+        }
+
+        /**
+         * Return the value of BOARD searched serially to DEPTH with the
+         * window (ALPHA, BETA) for the player indicated by SENSE.  The
+         * moves at each depth are generated into the current thread's
+         * buffer for that depth, which no other search uses meanwhile,
+         * since a serial search never forks.
+         */
+        private int serial(Board board, int depth, int alpha, int beta,
+                           int sense) {
+            if (depth == 0 || board.gameOver()) {
+                return _evaluator.score(board);
+            }
+            long[] moves = BUFFERS.get()[depth];
+            int n = board.getMoves(moves);
+            int v = sense == 1 ? -INFTY : INFTY;
+            for (int i = 0; i < n; i += 1) {
+                board.make(moves[i]);
+                _nodes.increment();
+                int score = serial(board, depth - 1, alpha, beta, -sense);
+                board.unmake();
+                if (i == 0 || (sense == 1 ? score > v : score < v)) {
+                    v = score;
+                }
+                if (sense == 1) {
+                    alpha = Math.max(alpha, v);
+                } else {
+                    beta = Math.min(beta, v);
+                }
+                if (beta <= alpha) {
+                    break;
+                }
+            }
+            return v;
+        }
+
+        /**
+         * The position searched.
+         */
+        private final Board _board;
+        /**
+         * Remaining depth.
+         */
+        private final int _depth;
+        /**
+         * Search window.
+         */
+        private final int _alpha, _beta;
+        /**
+         * 1 if white is to move, -1 if black.
+         */
+        private final int _sense;
+        /**
+         * The node that created me, or null.
+         */
+        private final Node _parent;
+        /**
+         * Set when one of my children has produced a cutoff, so that my
+         * other children may stop.
+         */
+        private volatile boolean _cutoff;
+        /**
+         * True iff my search finished.
+         */
+        private boolean _complete;
+        /**
+         * My value, when _complete.
+         */
+        private int _value;
+        /**
+         * The code of my best move, when _complete.
+         */
+        private long _best;
+    }
+
+    /**
+     * Number of positions visited by the current search.
+     */
+    private final LongAdder _nodes = new LongAdder();
+    /**
+     * Depth and value of the last completed iteration of the last
+     * search.
+     */
+    private int _depth, _value;
+    /**
+     * Number of positions visited by, and time in milliseconds taken
+     * by, the last completed iteration of the last search.
+     */
+    private long _iterationNodes, _iterationTime;
+    /**
+     * Time after which the current search should stop, or Long.MAX_VALUE
+     * while its first iteration is in progress.
+     */
+    private volatile long _deadline;
+    /**
+     * Set when the current search has run out of time.
+     */
+    private volatile boolean _stopped;
+    /**
+     * True iff the current search runs on the calling thread alone.
+     */
+    private boolean _serial;
+}
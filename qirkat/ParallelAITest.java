@@ -0,0 +1,64 @@
+package qirkat;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests of the ParallelAI class.
+ *  @author Tony Hsu
+ */
+public class ParallelAITest {
+
+    @Test
+    public void testAgreesWithSerialSearch() {
+        Random rand = new Random(8);
+        long[] codes = new long[Board.MAX_MOVES];
+        Board b = new Board();
+        Game game = new Game(b, null, null);
+        ParallelAI ai = new ParallelAI(game, PieceColor.WHITE);
+        for (int pos = 0; pos < 6; pos += 1) {
+            b.clear();
+            for (int ply = 0; ply < 2 + 3 * pos; ply += 1) {
+                int n = b.getMoves(codes);
+                if (n == 0) {
+                    break;
+                }
+                b.makeMove(MoveCode.toMove(codes[rand.nextInt(n)]));
+            }
+            if (b.getMoves(codes) < 2) {
+                continue;
+            }
+            Move serial = ai.findMove(0, Long.MAX_VALUE, 6);
+            int value = ai.value(), depth = ai.depth();
+            assertTrue(depth > 0);
+            Move parallel = ai.findMove(4, Long.MAX_VALUE, 6);
+            assertEquals(depth, ai.depth());
+            assertEquals(value, ai.value());
+            assertSame(serial, parallel);
+        }
+    }
+
+    @Test
+    public void testShallowSearches() {
+        Board b = new Board();
+        Game game = new Game(b, null, null);
+        ParallelAI ai = new ParallelAI(game, PieceColor.WHITE);
+        for (int depth = 1; depth < ParallelAI.SPLIT_DEPTH; depth += 1) {
+            for (int threads = 0; threads <= 2; threads += 2) {
+                Move mov = ai.findMove(threads, Long.MAX_VALUE, depth);
+                assertEquals(depth, ai.depth());
+                assertNotNull(mov);
+                assertTrue(b.legalMove(mov));
+            }
+        }
+        for (int threads = 0; threads <= 2; threads += 2) {
+            Move mov = ai.findMove(threads, 0, Searcher.MAX_DEPTH);
+            assertTrue(ai.depth() >= 1);
+            assertNotNull(mov);
+            assertTrue(b.legalMove(mov));
+        }
+    }
+
+}
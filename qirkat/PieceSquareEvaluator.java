@@ -0,0 +1,66 @@
+package qirkat;
+
+import static qirkat.Geometry.*;
+import static qirkat.Move.*;
+
+/** The default Evaluator: material, plus a positional weight for each
+ *  piece that depends only on its color and square, plus a small bonus
+ *  for each piece that can step straight ahead.  The positional weights
+ *  are my squareWeights, whose sum a Board on which I am installed keeps
+ *  up to date as pieces move (see Board.incremental), and material and
+ *  mobility are counted with a few bit operations, so a score takes
+ *  constant time.
+ *  @author Tony Hsu
+ */
+class PieceSquareEvaluator implements Evaluator {
+
+    @Override
+    public int score(Board board) {
+        int white = board.pieces(PieceColor.WHITE),
+            black = board.pieces(PieceColor.BLACK);
+        int empty = ~(white | black) & ALL;
+        int material = Integer.bitCount(white) - Integer.bitCount(black);
+        int mobility = Integer.bitCount(white & (empty >>> SIDE))
+            - Integer.bitCount(black & (empty << SIDE));
+        return PIECE_VALUE * material + MOBILITY * mobility
+            + board.incremental(this);
+    }
+
+    /** Return the positional weight of a piece of color COLOR (WHITE or
+     *  BLACK) on the square with linearized index K, from white's point
+     *  of view (so negative, as a rule, for black pieces). */
+    @Override
+    public int squareWeight(PieceColor color, int k) {
+        return color == PieceColor.WHITE ? WHITE_WEIGHTS[k]
+            : -WHITE_WEIGHTS[(SIDE - 1 - k / SIDE) * SIDE + k % SIDE];
+    }
+
+    /** Weight of a white piece in each row, from its own first row
+     *  forward: pieces that advance cramp the opponent, but a piece in
+     *  its last row can no longer move except to capture. */
+    private static final int[] ADVANCE = { 0, 4, 8, 10, 2 };
+    /** Weight of a piece per line through its square beyond the fewest
+     *  (3, at a corner): central squares, which have diagonals, command
+     *  more of the board. */
+    private static final int CENTER = 2;
+    /** Weight of a piece on the edge of the board, where it can be
+     *  jumped only along the edge (and, in a corner, not at all). */
+    private static final int EDGE = 6;
+    /** Weight of a piece that can step straight ahead. */
+    private static final int MOBILITY = 3;
+
+    /** Positional weights of a white piece on each square. */
+    private static final int[] WHITE_WEIGHTS = new int[SQUARES];
+
+    static {
+        for (int k = 0; k < SQUARES; k += 1) {
+            int c = k % SIDE, r = k / SIDE;
+            WHITE_WEIGHTS[k] =
+                ADVANCE[r] + CENTER * (NEIGHBORS[k].length - 3);
+            if (c == 0 || c == SIDE - 1 || r == 0 || r == SIDE - 1) {
+                WHITE_WEIGHTS[k] += EDGE;
+            }
+        }
+    }
+
+}
@@ -31,6 +31,11 @@ abstract class Player {
      *  board.whoseMove() == myColor and that !board.gameOver(). */
     abstract Move myMove();
 
+    /** Release anything I hold, such as background threads, once the
+     *  game I am playing in is over.  By default, there is nothing. */
+    void endGame() {
+    }
+
     /** The game I am playing in. */
     private final Game _game;
     /** The color of my pieces. */
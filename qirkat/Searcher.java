@@ -0,0 +1,807 @@
+package qirkat;
+
+import static qirkat.PieceColor.*;
+
+/**
+ * An alpha-beta searcher working on its own private copy of a position.
+ * Several Searchers may search the same position at once in different
+ * threads, sharing one TranspositionTable; each keeps all of its other
+ * state to itself.
+ *
+ * @author Tony Hsu
+ */
+class Searcher implements Runnable {
+
+    /**
+     * Maximum minimax search depth before going to static evaluation.
+     * Searches deepen iteratively up to this depth, time permitting.
+     */
+    static final int MAX_DEPTH = 64;
+    /**
+     * A magnitude greater than a normal value.
+     */
+    static final int INFTY = Integer.MAX_VALUE;
+    /**
+     * Magnitude of the value of a position that the tablebase shows to be
+     * won, before subtracting the number of plies to the win.
+     */
+    static final int TABLEBASE_WIN = INFTY / 2;
+    /**
+     * Magnitude of the value of a position whose game the search shows
+     * to end (with the side to move having no moves), before
+     * subtracting the number of plies from the root to the end.
+     */
+    static final int WIN_VALUE = INFTY - 1;
+    /**
+     * Number of nodes searched between checks of the clock.
+     */
+    private static final int CLOCK_INTERVAL = 1024;
+    /**
+     * History score above which all history scores are halved.
+     */
+    private static final int MAX_HISTORY = 1 << 24;
+    /**
+     * Limit on the number of plies of captures searched beyond the
+     * horizon.  Each captures at least one of the 24 pieces.
+     */
+    private static final int MAX_QUIESCE_PLY = 24;
+    /**
+     * Default least depth and number of moves already searched at
+     * which moves are reduced (see setReductions).
+     */
+    static final int REDUCTION_DEPTH = 3, REDUCTION_MOVES = 3;
+    /**
+     * Default depth and margin for futility pruning (see setFutility).
+     */
+    static final int FUTILITY_DEPTH = 2,
+        FUTILITY_MARGIN = Evaluator.PIECE_VALUE;
+    /**
+     * Initial distance on each side of the aspiration window from the
+     * value found by the previous iteration.
+     */
+    private static final int ASPIRATION = Evaluator.PIECE_VALUE / 4;
+    /**
+     * Number of pieces beyond those it captures that a capture at the
+     * horizon is assumed to be able to win, for delta pruning.
+     */
+    private static final int DELTA_MARGIN = 2;
+
+    /**
+     * A Searcher for the position on BOARD (which it copies), using
+     * TABLE.  Its iterative deepening starts at depth FIRSTDEPTH.
+     */
+    Searcher(Board board, TranspositionTable table, int firstDepth) {
+        _board = new Board(board);
+        _board.setEvaluator(_evaluator);
+        _table = table;
+        _firstDepth = firstDepth;
+        setOrdering(true);
+    }
+
+    /**
+     * Search by iterative deepening until the time budget set by
+     * setClock is used up, stop is called, or the outcome is decided.
+     * Afterwards, bestMove() and depth() describe the last iteration
+     * that finished.
+     */
+    @Override
+    public void run() {
+        int sense = _board.whoseMove() == WHITE ? 1 : -1;
+        if (_tablebase != null && _tablebase.covers(_board)) {
+            solveFromTablebase(sense);
+            return;
+        }
+        int value = 0;
+        for (int depth = _firstDepth; depth <= _maxDepth; depth += 1) {
+            value = _mtdf ? mtdf(depth, sense, value)
+                : aspire(depth, sense, value);
+            if (_aborted) {
+                break;
+            }
+            _bestMove = _lastFoundMove;
+            _value = value;
+            _depth = depth;
+            updateDeadline();
+            long elapsed = System.currentTimeMillis() - _start;
+            if (won(value) || 2 * elapsed > _budget) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Search my position to DEPTH for the player indicated by SENSE and
+     * return its value.  Unless this is my first iteration, first try a
+     * narrow window around GUESS, the value found by the last one; if
+     * the value falls outside it, widen the window on that side and
+     * search again.
+     */
+    private int aspire(int depth, int sense, int guess) {
+        if (!_pvs || depth == _firstDepth) {
+            _passes += 1;
+            return findMove(_board, depth, 0, sense, -INFTY, INFTY);
+        }
+        int below = ASPIRATION, above = ASPIRATION;
+        while (true) {
+            int alpha = guess - below < guess ? guess - below : -INFTY;
+            int beta = guess + above > guess ? guess + above : INFTY;
+            int value = findMove(_board, depth, 0, sense, alpha, beta);
+            _passes += 1;
+            if (_aborted) {
+                return value;
+            } else if (value <= alpha && alpha != -INFTY) {
+                below *= 2;
+            } else if (value >= beta && beta != INFTY) {
+                above *= 2;
+            } else {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Search my position to DEPTH for the player indicated by SENSE and
+     * return its value, by MTD(f): a sequence of null-window searches,
+     * the first around GUESS and each around the value returned by the
+     * last, which bound the value ever more closely from above or below
+     * until the bounds meet.  The transposition table keeps the repeated
+     * searches cheap.  The move found is that of the last search to
+     * show that the side to move can do at least as well as its value.
+     */
+    private int mtdf(int depth, int sense, int guess) {
+        int lower = -INFTY, upper = INFTY;
+        int value = guess;
+        long move = MoveCode.NONE;
+        while (lower < upper) {
+            int beta = value == lower ? value + 1 : value;
+            value = findMove(_board, depth, 0, sense, beta - 1, beta);
+            _passes += 1;
+            if (_aborted) {
+                return value;
+            }
+            if (value < beta) {
+                upper = value;
+            } else {
+                lower = value;
+            }
+            if (move == MoveCode.NONE || (sense == 1) == (value >= beta)) {
+                move = _lastFoundMove;
+            }
+        }
+        _lastFoundMove = move;
+        return value;
+    }
+
+    /**
+     * Choose the best move from my position, which my tablebase covers,
+     * for the player indicated by SENSE, by looking up the result of
+     * each move.
+     */
+    private void solveFromTablebase(int sense) {
+        long[] moves = new long[Board.MAX_MOVES];
+        int n = _board.getMoves(moves);
+        _bestMove = MoveCode.NONE;
+        _value = sense == 1 ? -INFTY : INFTY;
+        for (int i = 0; i < n; i += 1) {
+            _board.make(moves[i]);
+            _nodes += 1;
+            int value =
+                tablebaseValue(_board, _tablebase.probe(_board), 1);
+            _board.unmake();
+            if (sense == 1 ? value > _value : value < _value) {
+                _value = value;
+                _bestMove = moves[i];
+            }
+        }
+        _depth = 1;
+    }
+
+    /**
+     * Return the value, as for findMove, of BOARD, found at ply PLY,
+     * whose tablebase entry is ENTRY.  Won positions are worth nearly
+     * TABLEBASE_WIN, less the number of plies from the root to the end
+     * of the game, so that quicker wins and slower losses are preferred.
+     */
+    private static int tablebaseValue(Board board, int entry, int ply) {
+        int mover = board.whoseMove() == WHITE ? 1 : -1;
+        int value = TABLEBASE_WIN - ply - Tablebase.distance(entry);
+        switch (Tablebase.result(entry)) {
+        case Tablebase.WIN:
+            return mover * value;
+        case Tablebase.LOSS:
+            return -mover * value;
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * Allow searches to use BUDGET milliseconds starting from START (as
+     * from System.currentTimeMillis).  The first iteration runs to
+     * completion regardless.
+     */
+    void setClock(long start, long budget) {
+        _start = start;
+        _budget = budget;
+        _deadline = Long.MAX_VALUE;
+    }
+
+    /**
+     * Change the budget set by setClock to BUDGET milliseconds, still
+     * counted from the original start.  May be called from any thread
+     * while I am searching.
+     */
+    synchronized void setBudget(long budget) {
+        _budget = budget;
+        if (_depth > 0) {
+            updateDeadline();
+        }
+    }
+
+    /**
+     * Set the deadline for the iterations after the first from my clock.
+     */
+    private synchronized void updateDeadline() {
+        _deadline = _start + Math.min(_budget, Long.MAX_VALUE - _start);
+    }
+
+    /**
+     * Ask this searcher to abandon its current iteration as soon as
+     * possible.  May be called from any thread.
+     */
+    void stop() {
+        _stopped = true;
+    }
+
+    /**
+     * Return the code (see MoveCode) of the best move found by the last
+     * completed iteration, or MoveCode.NONE if none has completed.
+     */
+    long bestMove() {
+        return _bestMove;
+    }
+
+    /**
+     * Return the value found by the last completed iteration.
+     */
+    int value() {
+        return _value;
+    }
+
+    /**
+     * Return the depth of the last completed iteration (0 if none).
+     */
+    int depth() {
+        return _depth;
+    }
+
+    /**
+     * Return the number of positions visited so far.
+     */
+    long nodes() {
+        return _nodes;
+    }
+
+    /**
+     * Return the number of searches of the root position so far.
+     */
+    long passes() {
+        return _passes;
+    }
+
+    /**
+     * Return the number of transposition-table probes so far.
+     */
+    long probes() {
+        return _probes;
+    }
+
+    /**
+     * Return the number of transposition-table probes so far that found
+     * an entry.
+     */
+    long hits() {
+        return _hits;
+    }
+
+    /**
+     * Return true iff VALUE is that of a game that the search shows to
+     * end (see WIN_VALUE).
+     */
+    private static boolean won(int value) {
+        return Math.abs(value) >= WIN_VALUE - MAX_DEPTH - MAX_QUIESCE_PLY;
+    }
+
+    /**
+     * Return VALUE, found at ply PLY, as stored in the transposition
+     * table.  Values that count plies to the end of the game (see
+     * TABLEBASE_WIN and WIN_VALUE) count them there from the position
+     * rather than from the root, so that they hold wherever the position
+     * recurs.
+     */
+    private static int toTable(int value, int ply) {
+        if (value > TABLEBASE_WIN / 2) {
+            return value + ply;
+        } else if (value < -TABLEBASE_WIN / 2) {
+            return value - ply;
+        }
+        return value;
+    }
+
+    /**
+     * Return the value at ply PLY of the position whose value in the
+     * transposition table is VALUE (the inverse of toTable).
+     */
+    private static int fromTable(int value, int ply) {
+        if (value > TABLEBASE_WIN / 2) {
+            return value - ply;
+        } else if (value < -TABLEBASE_WIN / 2) {
+            return value + ply;
+        }
+        return value;
+    }
+
+    /**
+     * Find a move from position BOARD and return its value, recording
+     * the move found in _lastFoundMove iff PLY is 0 (that is, BOARD is
+     * the root position). The move should have maximal value or have
+     * value > BETA if SENSE==1, and minimal value or value < ALPHA if
+     * SENSE==-1. Searches up to DEPTH levels.  Searching at level 0
+     * resolves any pending captures (see quiesce) and does not set
+     * _lastMoveFound.  A position whose side to move has no moves is
+     * lost, and worth WIN_VALUE, less PLY, to the other side.  Results
+     * are recorded in (see toTable), and where deep enough taken from,
+     * the transposition table, whose best move for a position is
+     * searched first.  Moves are picked, in stages, by
+     * _pickers[PLY].  Once one move has been searched, the others are
+     * first searched with a null window, only to show that they are no
+     * better, and searched again with the full window if they are
+     * (principal-variation search).  Later non-capturing moves that leave
+     * the opponent no capture are searched less deeply at first (see
+     * searchMove), and, within _futilityDepth of the horizon, not at all
+     * if the static value is so far outside the window that they
+     * could not bring it back (futility pruning).  The root's window
+     * comes from aspiration (see aspire) or, alternatively, MTD(f).
+     */
+    private int findMove(Board board, int depth, int ply, int sense,
+                         int alpha, int beta) {
+        if (countNode()) {
+            return 0;
+        }
+        if (_tablebase != null && ply > 0) {
+            int entry = _tablebase.probe(board);
+            if (entry != Tablebase.UNKNOWN) {
+                return tablebaseValue(board, entry, ply);
+            }
+        }
+        if (board.gameOver()) {
+            return _evaluator.score(board);
+        }
+        if (depth == 0) {
+            return _quiescence ? quiesce(board, ply, 0, sense, alpha, beta)
+                : _evaluator.score(board);
+        }
+        long key = board.key();
+        int alpha0 = alpha, beta0 = beta;
+        long entry = _table.probe(key);
+        _probes += 1;
+        if (entry != 0) {
+            _hits += 1;
+        }
+        long hashMove =
+            entry == 0 ? MoveCode.NONE : _table.probeMove(key);
+        if (entry != 0 && ply > 0
+            && TranspositionTable.depth(entry) >= depth) {
+            int value = fromTable(TranspositionTable.score(entry), ply);
+            switch (TranspositionTable.bound(entry)) {
+            case TranspositionTable.EXACT:
+                return value;
+            case TranspositionTable.LOWER:
+                alpha = Math.max(alpha, value);
+                break;
+            default:
+                beta = Math.min(beta, value);
+                break;
+            }
+            if (beta <= alpha) {
+                return value;
+            }
+        }
+        MovePicker picker = _pickers[ply];
+        long[] killers = _killers[ply];
+        picker.reset(board, hashMove, killers[0], killers[1]);
+        long best;
+        best = MoveCode.NONE;
+        int v = sense == 1 ? -INFTY : INFTY;
+        int stand = depth <= _futilityDepth ? _evaluator.score(board) : 0;
+        int count = 0;
+        for (long cur = picker.next(); cur != MoveCode.NONE;
+             cur = picker.next(), count += 1) {
+            board.make(cur);
+            boolean quiet =
+                count > 0 && !MoveCode.isJump(cur) && !board.jumpPossible();
+            int score;
+            if (quiet && depth <= _futilityDepth
+                && (sense == 1 ? stand + _futilityMargin * depth <= alpha
+                    : stand - _futilityMargin * depth >= beta)) {
+                score = stand + sense * _futilityMargin * depth;
+            } else {
+                int reduction =
+                    quiet && ply > 0 && depth >= _reductionDepth
+                    && count >= _reductionMoves ? 1 : 0;
+                score = searchMove(board, depth, ply, sense, alpha, beta,
+                                   count == 0, reduction);
+            }
+            board.unmake();
+            if (_aborted) {
+                return 0;
+            }
+            if (best == MoveCode.NONE
+                || (sense == 1 ? score > v : score < v)) {
+                v = score;
+                best = cur;
+            }
+            if (sense == 1) {
+                alpha = Math.max(alpha, v);
+            } else {
+                beta = Math.min(beta, v);
+            }
+            if (beta <= alpha) {
+                if (!MoveCode.isJump(cur)) {
+                    recordCutoff(cur, depth, ply);
+                }
+                break;
+            }
+        }
+        if (best == MoveCode.NONE) {
+            v = -sense * (WIN_VALUE - ply);
+        }
+        int bound;
+        if (v <= alpha0) {
+            bound = TranspositionTable.UPPER;
+        } else if (v >= beta0) {
+            bound = TranspositionTable.LOWER;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        _table.store(key, depth, toTable(v, ply), bound, best);
+        if (ply == 0) {
+            _lastFoundMove = best;
+        }
+        return v;
+    }
+
+    /**
+     * Return the value of BOARD, which results from a move at ply PLY
+     * of a search to DEPTH by the player indicated by SENSE, with the
+     * window (ALPHA, BETA), as for findMove.  Unless FIRST (the move is
+     * the first searched at its node) or PVS is off, first show with a
+     * null window that it is no better than the best so far, searching
+     * again with the full window only if it is.  Before that, if
+     * REDUCTION is positive, try to show the same by a search that much
+     * shallower (a late-move reduction).
+     */
+    private int searchMove(Board board, int depth, int ply, int sense,
+                           int alpha, int beta, boolean first,
+                           int reduction) {
+        int lo = alpha, hi = beta;
+        if (!first && _pvs) {
+            if (sense == 1) {
+                hi = alpha + 1;
+            } else {
+                lo = beta - 1;
+            }
+        }
+        int score;
+        if (reduction > 0) {
+            score = findMove(board, Math.max(0, depth - 1 - reduction),
+                             ply + 1, -sense, lo, hi);
+            if (sense == 1 ? score <= alpha : score >= beta) {
+                return score;
+            }
+        }
+        score = findMove(board, depth - 1, ply + 1, -sense, lo, hi);
+        if ((lo != alpha || hi != beta) && score > alpha && score < beta) {
+            score = findMove(board, depth - 1, ply + 1, -sense,
+                             alpha, beta);
+        }
+        return score;
+    }
+
+    /**
+     * Return the value of BOARD, as for findMove, once the captures
+     * pending in it have been played out, searching only captures and
+     * starting at ply QPLY of the capture search, which began at ply PLY
+     * of the main search.  Since captures are mandatory, the side to
+     * move may stand pat on the static score only when it has none;
+     * otherwise it must choose among them.  If it has no move at all, it
+     * has lost (see findMove).  A capture that could not bring the score
+     * within the window (ALPHA, BETA) even if it won DELTA_MARGIN more
+     * pieces than it captures is not searched, and counts at that
+     * optimistic value (delta pruning).
+     */
+    private int quiesce(Board board, int ply, int qply, int sense,
+                        int alpha, int beta) {
+        if (qply > 0 && countNode()) {
+            return 0;
+        }
+        int stand = _evaluator.score(board);
+        if (qply >= MAX_QUIESCE_PLY) {
+            return stand;
+        }
+        long[] moves = _captures[qply];
+        int n = board.getJumps(moves);
+        if (n == 0) {
+            return board.hasAnyMove() ? stand
+                : -sense * (WIN_VALUE - ply - qply);
+        }
+        int v = sense == 1 ? -INFTY : INFTY;
+        for (int i = 0; i < n; i += 1) {
+            int score;
+            int gain = (MoveCode.legs(moves[i]) + DELTA_MARGIN)
+                * Evaluator.PIECE_VALUE;
+            if (sense == 1 ? stand + gain <= alpha : stand - gain >= beta) {
+                score = stand + sense * gain;
+            } else {
+                board.make(moves[i]);
+                score = quiesce(board, ply, qply + 1, -sense, alpha, beta);
+                board.unmake();
+                if (_aborted) {
+                    return 0;
+                }
+            }
+            if (sense == 1 ? score > v : score < v) {
+                v = score;
+            }
+            if (sense == 1) {
+                alpha = Math.max(alpha, v);
+            } else {
+                beta = Math.min(beta, v);
+            }
+            if (beta <= alpha) {
+                break;
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Count a visit to a position and check the clock every
+     * CLOCK_INTERVAL visits.  Return true iff the current iteration has
+     * been abandoned.
+     */
+    private boolean countNode() {
+        _nodes += 1;
+        if (_nodes % CLOCK_INTERVAL == 0
+            && (_stopped || System.currentTimeMillis() > _deadline)) {
+            _aborted = true;
+        }
+        return _aborted;
+    }
+
+    /**
+     * Record that the non-capturing move MOV caused a cutoff when
+     * searched to DEPTH at ply PLY, making it a killer move at that ply
+     * and raising its history score.
+     */
+    private void recordCutoff(long mov, int depth, int ply) {
+        if (!_ordering) {
+            return;
+        }
+        long[] killers = _killers[ply];
+        if (killers[0] != mov) {
+            killers[1] = killers[0];
+            killers[0] = mov;
+        }
+        int i = MoveCode.from(mov) * MovePicker.SQUARES + MoveCode.to(mov);
+        _history[i] += depth * depth;
+        if (_history[i] > MAX_HISTORY) {
+            for (int j = 0; j < _history.length; j += 1) {
+                _history[j] /= 2;
+            }
+        }
+    }
+
+    /**
+     * Use killer moves and history scores to order moves iff ORDERING
+     * (the default), which must be set before the search starts.  Turning
+     * them off allows their effect on the size of searches to be measured.
+     */
+    void setOrdering(boolean ordering) {
+        for (int p = 0; p < _pickers.length; p += 1) {
+            _pickers[p] = new MovePicker(ordering ? _history : null);
+        }
+        _ordering = ordering;
+    }
+
+    /**
+     * Play out pending captures at the horizon iff QUIESCENCE (the
+     * default); otherwise, evaluate the positions there statically.
+     */
+    void setQuiescence(boolean quiescence) {
+        _quiescence = quiescence;
+    }
+
+    /**
+     * Use principal-variation search and aspiration windows iff PVS (the
+     * default); otherwise, search every move with the full window.
+     */
+    void setPvs(boolean pvs) {
+        _pvs = pvs;
+    }
+
+    /**
+     * Find the value of each iteration by MTD(f) iff MTDF; otherwise (the
+     * default), by a search with a full or aspiration window.
+     */
+    void setMtdf(boolean mtdf) {
+        _mtdf = mtdf;
+    }
+
+    /**
+     * Search non-capturing moves one ply less deeply at first at nodes
+     * at least DEPTH from the horizon, once MOVES moves have been
+     * searched there.  A DEPTH of 0 turns these reductions off; a
+     * reduced search never goes below the horizon.
+     */
+    void setReductions(int depth, int moves) {
+        _reductionDepth = depth == 0 ? Integer.MAX_VALUE : depth;
+        _reductionMoves = Math.max(1, moves);
+    }
+
+    /**
+     * Prune non-capturing moves at most DEPTH plies from the horizon
+     * when the static value is further than MARGIN (in the units of the
+     * evaluator) per ply outside the window.  A DEPTH of 0 turns this
+     * pruning off.
+     */
+    void setFutility(int depth, int margin) {
+        _futilityDepth = depth;
+        _futilityMargin = margin;
+    }
+
+    /**
+     * Limit iterative deepening to depths of at most MAXDEPTH.
+     */
+    void setMaxDepth(int maxDepth) {
+        _maxDepth = Math.min(maxDepth, MAX_DEPTH);
+    }
+
+    /**
+     * Look up the positions that TABLEBASE covers in it, rather than
+     * searching them.  TABLEBASE may be null, meaning there is none.
+     */
+    void setTablebase(Tablebase tablebase) {
+        _tablebase = tablebase;
+    }
+
+    /**
+     * Evaluate the leaves of my searches with EVALUATOR, rather than the
+     * default PieceSquareEvaluator.
+     */
+    void setEvaluator(Evaluator evaluator) {
+        _evaluator = evaluator;
+        _board.setEvaluator(evaluator);
+    }
+
+    /**
+     * My private copy of the position being searched.
+     */
+    private final Board _board;
+    /**
+     * The transposition table, possibly shared with other Searchers.
+     */
+    private final TranspositionTable _table;
+    /**
+     * The evaluation function applied at the leaves.
+     */
+    private Evaluator _evaluator = new PieceSquareEvaluator();
+    /**
+     * The endgame tablebase, or null if there is none.
+     */
+    private Tablebase _tablebase;
+    /**
+     * Depth of my first iteration.
+     */
+    private final int _firstDepth;
+    /**
+     * Move pickers: _pickers[P] supplies the moves of the position being
+     * searched at ply P (the root being at ply 0).
+     */
+    private final MovePicker[] _pickers = new MovePicker[MAX_DEPTH + 1];
+    /**
+     * Killer moves: _killers[P] holds the last two distinct non-capturing
+     * moves to cause cutoffs at ply P, most recent first.
+     */
+    private final long[][] _killers = new long[MAX_DEPTH + 1][2];
+    /**
+     * History scores, indexed by from * SQUARES + to: the sum, over the
+     * cutoffs caused by each non-capturing move, of the square of the
+     * depth searched.
+     */
+    private final int[] _history =
+        new int[MovePicker.SQUARES * MovePicker.SQUARES];
+    /**
+     * True iff killer moves and history scores are used.
+     */
+    private boolean _ordering;
+    /**
+     * Move buffers for the capture search: _captures[Q] holds the
+     * captures of the position at ply Q of that search.
+     */
+    private final long[][] _captures =
+        new long[MAX_QUIESCE_PLY][Board.MAX_MOVES];
+    /**
+     * True iff pending captures are played out at the horizon.
+     */
+    private boolean _quiescence = true;
+    /**
+     * True iff principal-variation search and aspiration windows are
+     * used.
+     */
+    private boolean _pvs = true;
+    /**
+     * True iff iterations are searched by MTD(f).
+     */
+    private boolean _mtdf;
+    /**
+     * Least depth and number of moves already searched at which moves
+     * are reduced.
+     */
+    private int _reductionDepth = REDUCTION_DEPTH,
+        _reductionMoves = REDUCTION_MOVES;
+    /**
+     * Greatest depth at which moves are pruned as futile, and the margin
+     * per ply.
+     */
+    private int _futilityDepth = FUTILITY_DEPTH,
+        _futilityMargin = FUTILITY_MARGIN;
+    /**
+     * Greatest depth to which to deepen.
+     */
+    private int _maxDepth = MAX_DEPTH;
+    /**
+     * The move found by the last call to findMove at the root.
+     */
+    private long _lastFoundMove;
+    /**
+     * Best move of the last completed iteration.
+     */
+    private long _bestMove;
+    /**
+     * Value found by the last completed iteration.
+     */
+    private int _value;
+    /**
+     * Depth of the last completed iteration.
+     */
+    private int _depth;
+    /**
+     * Statistics: positions visited, searches of the root, and
+     * transposition-table probes and hits.
+     */
+    private long _nodes, _passes, _probes, _hits;
+    /**
+     * Start time (as from System.currentTimeMillis) of the search.
+     */
+    private long _start;
+    /**
+     * Time budget (milliseconds) of the search, which setBudget may
+     * change from another thread.
+     */
+    private volatile long _budget;
+    /**
+     * Time (as from System.currentTimeMillis) after which the search
+     * should stop, or Long.MAX_VALUE while the first iteration is in
+     * progress.
+     */
+    private volatile long _deadline;
+    /**
+     * True iff the current iteration was abandoned before finishing.
+     */
+    private boolean _aborted;
+    /**
+     * Set (possibly by another thread) to ask me to stop.
+     */
+    private volatile boolean _stopped;
+}
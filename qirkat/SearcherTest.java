@@ -0,0 +1,164 @@
+package qirkat;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests of the Searcher class.
+ *  @author Tony Hsu
+ */
+public class SearcherTest {
+
+    /** Return some positions from the early middle game, reached by
+     *  random play from the initial position. */
+    private static ArrayList<Board> positions() {
+        Random rand = new Random(66);
+        long[] codes = new long[Board.MAX_MOVES];
+        ArrayList<Board> result = new ArrayList<>();
+        for (int game = 0; game < 8; game += 1) {
+            Board b = new Board();
+            for (int ply = 0; ply < 4 + 2 * game; ply += 1) {
+                int n = b.getMoves(codes);
+                if (n == 0) {
+                    break;
+                }
+                b.make(codes[rand.nextInt(n)]);
+            }
+            if (b.getMoves(codes) > 0) {
+                result.add(new Board(b));
+            }
+        }
+        return result;
+    }
+
+    /** Return a Searcher for BOARD, with a table of its own, that will
+     *  deepen to DEPTH without a time limit. */
+    private static Searcher searcher(Board board, int depth) {
+        Searcher s = new Searcher(board, new TranspositionTable(1), 1);
+        s.setClock(System.currentTimeMillis(), Long.MAX_VALUE);
+        s.setMaxDepth(depth);
+        return s;
+    }
+
+    @Test
+    public void testFindsLegalMove() {
+        for (Board b : positions()) {
+            Searcher s = searcher(b, 4);
+            s.run();
+            assertEquals(4, s.depth());
+            assertTrue(b.isLegal(s.bestMove()));
+        }
+    }
+
+    @Test
+    public void testQuiescence() {
+        Board b = new Board();
+        b.setPieces("----- ----- ---w- ----- ----b", PieceColor.WHITE);
+        long loses = MoveCode.parse("d3-d4");
+        Searcher s = searcher(b, 1);
+        s.setQuiescence(false);
+        s.run();
+        assertEquals("horizon hides the capture", loses, s.bestMove());
+        s = searcher(b, 1);
+        s.run();
+        assertTrue(b.isLegal(s.bestMove()));
+        assertNotEquals("walked into a capture", loses, s.bestMove());
+    }
+
+    @Test
+    public void testNoMovesLoses() {
+        Board b = new Board();
+        b.setPieces("b-w-w w---- ----- ----- -----", PieceColor.WHITE);
+        Searcher s = searcher(b, 1);
+        s.run();
+        assertEquals(MoveCode.parse("a2-a3"), s.bestMove());
+        assertEquals("black cannot move", Searcher.WIN_VALUE - 1,
+                     s.value());
+    }
+
+    @Test
+    public void testPvs() {
+        long pvs, plain;
+        pvs = plain = 0;
+        for (Board b : positions()) {
+            Searcher s = searcher(b, 8);
+            s.setReductions(0, 0);
+            s.setFutility(0, 0);
+            s.run();
+            pvs += s.nodes();
+            Searcher t = searcher(b, 8);
+            t.setReductions(0, 0);
+            t.setFutility(0, 0);
+            t.setPvs(false);
+            t.run();
+            plain += t.nodes();
+            assertEquals("values differ", t.value(), s.value());
+            assertEquals("moves differ", t.bestMove(), s.bestMove());
+        }
+        assertTrue("PVS searched more nodes", pvs < plain);
+    }
+
+    @Test
+    public void testMtdf() {
+        for (Board b : positions()) {
+            Searcher s = searcher(b, 7);
+            s.setMtdf(true);
+            s.run();
+            Searcher t = searcher(b, 7);
+            t.run();
+            assertEquals("values differ", t.value(), s.value());
+            assertTrue(b.isLegal(s.bestMove()));
+        }
+    }
+
+    @Test
+    public void testSelectivity() {
+        long selective, full;
+        selective = full = 0;
+        for (Board b : positions()) {
+            Searcher s = searcher(b, 8);
+            s.run();
+            selective += s.nodes();
+            assertTrue(b.isLegal(s.bestMove()));
+            s = searcher(b, 8);
+            s.setReductions(0, 0);
+            s.setFutility(0, 0);
+            s.run();
+            full += s.nodes();
+        }
+        assertTrue("reductions and pruning searched more nodes",
+                   selective < full);
+    }
+
+    @Test
+    public void testReductionsStopAtHorizon() {
+        for (Board b : positions()) {
+            Searcher s = searcher(b, 6);
+            s.setReductions(1, 1);
+            s.run();
+            assertEquals(6, s.depth());
+            assertTrue(b.isLegal(s.bestMove()));
+        }
+    }
+
+    @Test
+    public void testOrderingReducesNodes() {
+        long ordered, unordered;
+        ordered = unordered = 0;
+        for (Board b : positions()) {
+            Searcher s = searcher(b, 8);
+            s.run();
+            ordered += s.nodes();
+            s = searcher(b, 8);
+            s.setOrdering(false);
+            s.run();
+            unordered += s.nodes();
+        }
+        assertTrue("killer and history ordering searched more nodes",
+                   ordered < unordered);
+    }
+
+}
@@ -0,0 +1,262 @@
+package qirkat;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import static qirkat.PieceColor.*;
+import static qirkat.Move.*;
+
+/** An endgame tablebase: the exact outcome, with best play, of every
+ *  position with at most maxPieces() pieces of each color, read from a
+ *  file written by TablebaseBuilder.  The file is memory-mapped, so
+ *  that probes cost no more than an array access once its pages are
+ *  resident, and one Tablebase may be probed by any number of threads.
+ *
+ *  Positions are grouped into classes by the numbers of white and black
+ *  pieces.  Within a class, a position's index is formed from the rank
+ *  of the set of white squares among all sets of that size, the rank of
+ *  the set of black squares among those of the remaining squares, the
+ *  direction of each piece's last move (see Board.direction), and the
+ *  player to move.  The file holds a header (MAGIC and maxPieces()),
+ *  followed by one 16-bit entry for each position of each class, the
+ *  classes in order of white pieces and then black pieces.  An entry
+ *  holds a result (WIN, LOSS, or DRAW, for the player to move) and the
+ *  number of plies to the end of the game with best play.
+ *  @author Tony Hsu
+ */
+final class Tablebase {
+
+    /** First word of a tablebase file. */
+    static final int MAGIC = 0x51544231;
+    /** Size in bytes of the file header. */
+    static final int HEADER_SIZE = 8;
+    /** Largest number of pieces per side supported.  With three per
+     *  side the largest class alone would have over five billion
+     *  positions. */
+    static final int MAX_PIECES = 2;
+
+    /** Results of positions, for the player to move.  UNKNOWN is also
+     *  the entry for a position that the tablebase does not cover. */
+    static final int UNKNOWN = 0, LOSS = 1, WIN = 2, DRAW = 3;
+
+    /** Return the tablebase in the file named FILENAME. */
+    static Tablebase open(String fileName) throws IOException {
+        try (FileChannel channel =
+             FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            MappedByteBuffer data =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+                throw new IOException("not a tablebase file");
+            }
+            int maxPieces = data.getInt(4);
+            if (maxPieces < 0 || maxPieces > MAX_PIECES
+                || data.capacity()
+                   != HEADER_SIZE + 2 * classOffset(maxPieces,
+                                                    maxPieces + 1, 0)) {
+                throw new IOException("corrupt tablebase file");
+            }
+            return new Tablebase(data, maxPieces);
+        }
+    }
+
+    /** A tablebase covering up to MAXPIECES pieces per side, whose
+     *  contents (including the header) are DATA. */
+    private Tablebase(MappedByteBuffer data, int maxPieces) {
+        _data = data;
+        _maxPieces = maxPieces;
+    }
+
+    /** Return the largest number of pieces per side I cover. */
+    int maxPieces() {
+        return _maxPieces;
+    }
+
+    /** Return true iff I cover BOARD. */
+    boolean covers(Board board) {
+        return Integer.bitCount(board.pieces(WHITE)) <= _maxPieces
+            && Integer.bitCount(board.pieces(BLACK)) <= _maxPieces;
+    }
+
+    /** Return my entry for BOARD, or UNKNOWN if I do not cover it. */
+    int probe(Board board) {
+        if (!covers(board)) {
+            return UNKNOWN;
+        }
+        int w = Integer.bitCount(board.pieces(WHITE)),
+            b = Integer.bitCount(board.pieces(BLACK));
+        long i = classOffset(_maxPieces, w, b) + index(board);
+        return _data.getShort((int) (HEADER_SIZE + 2 * i)) & 0xffff;
+    }
+
+    /** Return the entry for a position with result RESULT, DISTANCE
+     *  plies from the end of the game. */
+    static int entry(int result, int distance) {
+        assert distance <= MAX_DISTANCE;
+        return distance << 2 | result;
+    }
+
+    /** Return the result recorded in ENTRY. */
+    static int result(int entry) {
+        return entry & 3;
+    }
+
+    /** Return the distance to the end of the game recorded in ENTRY. */
+    static int distance(int entry) {
+        return entry >>> 2;
+    }
+
+    /** Largest distance an entry can record. */
+    static final int MAX_DISTANCE = (1 << 14) - 1;
+
+    /** Return the number of positions with W white and B black
+     *  pieces. */
+    static long classSize(int w, int b) {
+        return CHOOSE[SQUARES][w] * CHOOSE[SQUARES - w][b]
+            * POWERS_OF_3[w + b] * 2;
+    }
+
+    /** Return the number of positions in the classes that precede the
+     *  class of W white and B black pieces in a file covering up to
+     *  MAXPIECES pieces per side.  With W = MAXPIECES + 1 and B = 0,
+     *  this is the total number of positions in the file. */
+    static long classOffset(int maxPieces, int w, int b) {
+        long result = 0;
+        for (int w0 = 0; w0 <= maxPieces; w0 += 1) {
+            for (int b0 = 0; b0 <= maxPieces; b0 += 1) {
+                if (w0 == w && b0 == b) {
+                    return result;
+                }
+                result += classSize(w0, b0);
+            }
+        }
+        return result;
+    }
+
+    /** Return the index of BOARD within its class. */
+    static long index(Board board) {
+        int white = board.pieces(WHITE), black = board.pieces(BLACK);
+        int w = Integer.bitCount(white), b = Integer.bitCount(black);
+        long dirs = 0;
+        for (int m = white; m != 0; m &= m - 1) {
+            dirs = 3 * dirs
+                + board.direction(Integer.numberOfTrailingZeros(m)) + 1;
+        }
+        for (int m = black; m != 0; m &= m - 1) {
+            dirs = 3 * dirs
+                + board.direction(Integer.numberOfTrailingZeros(m)) + 1;
+        }
+        long result = rank(white) * CHOOSE[SQUARES - w][b]
+            + rank(compress(black, white));
+        result = result * POWERS_OF_3[w + b] + dirs;
+        return 2 * result + (board.whoseMove() == WHITE ? 0 : 1);
+    }
+
+    /** Set BOARD to the position with index INDEX in the class of W
+     *  white and B black pieces. */
+    static void decode(long index, int w, int b, Board board) {
+        PieceColor next = index % 2 == 0 ? WHITE : BLACK;
+        index /= 2;
+        long dirs = index % POWERS_OF_3[w + b];
+        index /= POWERS_OF_3[w + b];
+        int white = unrank(index / CHOOSE[SQUARES - w][b], w);
+        int black = expand(unrank(index % CHOOSE[SQUARES - w][b], b), white);
+        int left, right;
+        left = right = 0;
+        for (int m = Integer.reverse(black); m != 0; m &= m - 1) {
+            int bit = 1 << (31 - Integer.numberOfTrailingZeros(m));
+            left |= dirs % 3 == 0 ? bit : 0;
+            right |= dirs % 3 == 2 ? bit : 0;
+            dirs /= 3;
+        }
+        for (int m = Integer.reverse(white); m != 0; m &= m - 1) {
+            int bit = 1 << (31 - Integer.numberOfTrailingZeros(m));
+            left |= dirs % 3 == 0 ? bit : 0;
+            right |= dirs % 3 == 2 ? bit : 0;
+            dirs /= 3;
+        }
+        board.setPosition(white, black, left, right, next);
+    }
+
+    /** Return the rank of the set of squares SET among all sets of the
+     *  same size, in the combinatorial number system. */
+    private static long rank(int set) {
+        long result = 0;
+        int i = 1;
+        for (int m = set; m != 0; m &= m - 1, i += 1) {
+            result += CHOOSE[Integer.numberOfTrailingZeros(m)][i];
+        }
+        return result;
+    }
+
+    /** Return the set of N squares whose rank (as for rank) is RANK. */
+    private static int unrank(long rank, int n) {
+        int result = 0;
+        for (int i = n, k = SQUARES - 1; i > 0; i -= 1) {
+            while (CHOOSE[k][i] > rank) {
+                k -= 1;
+            }
+            result |= 1 << k;
+            rank -= CHOOSE[k][i];
+            k -= 1;
+        }
+        return result;
+    }
+
+    /** Return SET, which contains none of the squares in HOLES, with the
+     *  squares renumbered consecutively, skipping those in HOLES. */
+    private static int compress(int set, int holes) {
+        int result = 0;
+        for (int m = set; m != 0; m &= m - 1) {
+            int k = Integer.numberOfTrailingZeros(m);
+            result |= 1 << (k - Integer.bitCount(holes & ((1 << k) - 1)));
+        }
+        return result;
+    }
+
+    /** Return the set whose compressed form (as for compress) with
+     *  respect to HOLES is SET. */
+    private static int expand(int set, int holes) {
+        int result = 0;
+        for (int k = 0; set != 0; k += 1) {
+            if ((holes & (1 << k)) == 0) {
+                if ((set & 1) != 0) {
+                    result |= 1 << k;
+                }
+                set >>>= 1;
+            }
+        }
+        return result;
+    }
+
+    /** Number of squares on the board. */
+    private static final int SQUARES = MAX_INDEX + 1;
+
+    /** CHOOSE[N][K] is the number of K-element subsets of an N-element
+     *  set. */
+    private static final long[][] CHOOSE = new long[SQUARES + 1][];
+    /** POWERS_OF_3[K] is 3 to the Kth power. */
+    private static final long[] POWERS_OF_3 = new long[2 * MAX_PIECES + 1];
+
+    static {
+        for (int n = 0; n <= SQUARES; n += 1) {
+            CHOOSE[n] = new long[SQUARES + 2];
+            CHOOSE[n][0] = 1;
+            for (int k = 1; k <= n; k += 1) {
+                CHOOSE[n][k] = CHOOSE[n - 1][k - 1] + CHOOSE[n - 1][k];
+            }
+        }
+        POWERS_OF_3[0] = 1;
+        for (int k = 1; k < POWERS_OF_3.length; k += 1) {
+            POWERS_OF_3[k] = 3 * POWERS_OF_3[k - 1];
+        }
+    }
+
+    /** The file's contents. */
+    private final MappedByteBuffer _data;
+    /** Largest number of pieces per side covered. */
+    private final int _maxPieces;
+
+}
@@ -0,0 +1,207 @@
+package qirkat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+import static qirkat.PieceColor.*;
+import static qirkat.Move.*;
+import static qirkat.Tablebase.*;
+
+/** Generates the endgame tablebase files read by Tablebase.  Run as
+ *
+ *      java qirkat.TablebaseBuilder N FILE
+ *
+ *  to solve every position with at most N pieces per side and write the
+ *  results to FILE.
+ *
+ *  Positions are solved backwards from the end of the game (retrograde
+ *  analysis), one class of positions (numbers of white and black
+ *  pieces) at a time, fewest pieces first, so that the results of all
+ *  captures, which lead to smaller classes, are known when needed.
+ *  Within a class, the only moves are non-capturing ones, which carry a
+ *  piece forward, or sideways in the direction of its last sideways
+ *  move, if any.  Each such move therefore increases the class's
+ *  measure of progress (see progress), so that solving the positions in
+ *  decreasing order of progress finds the result of each position's
+ *  successors before the position itself, and no position can recur.
+ *  The positions of each level of progress are independent of one
+ *  another, and are solved in parallel on all available processors.
+ *  @author Tony Hsu
+ */
+final class TablebaseBuilder {
+
+    /** Not instantiable. */
+    private TablebaseBuilder() {
+    }
+
+    /** Write the tablebase described by ARGS (see above). */
+    public static void main(String... args) {
+        if (args.length != 2 || !args[0].matches("\\d")
+            || Integer.parseInt(args[0]) > MAX_PIECES) {
+            System.err.printf("Usage: java qirkat.TablebaseBuilder N FILE"
+                              + " (N <= %d)%n", MAX_PIECES);
+            System.exit(1);
+        }
+        try {
+            long start = System.currentTimeMillis();
+            build(Integer.parseInt(args[0]), args[1]);
+            System.err.printf("[%d msec]%n",
+                              System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            System.err.printf("Error writing %s: %s%n", args[1],
+                              e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Solve every position with at most MAXPIECES pieces per side, and
+     *  write the results to the file named FILENAME. */
+    static void build(int maxPieces, String fileName) throws IOException {
+        short[][][] tables = new short[maxPieces + 1][maxPieces + 1][];
+        for (int total = 0; total <= 2 * maxPieces; total += 1) {
+            for (int w = Math.max(0, total - maxPieces);
+                 w <= Math.min(total, maxPieces); w += 1) {
+                tables[w][total - w] = solve(w, total - w, tables);
+            }
+        }
+        try (DataOutputStream out =
+             new DataOutputStream(new BufferedOutputStream(
+                 new FileOutputStream(fileName)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(maxPieces);
+            for (int w = 0; w <= maxPieces; w += 1) {
+                for (int b = 0; b <= maxPieces; b += 1) {
+                    for (short entry : tables[w][b]) {
+                        out.writeShort(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Return the entries for the class of W white and B black pieces,
+     *  given TABLES, in which TABLES[W0][B0] holds those for each smaller
+     *  class. */
+    private static short[] solve(int w, int b, short[][][] tables) {
+        int size = (int) classSize(w, b);
+        short[] result = new short[size];
+        tables[w][b] = result;
+
+        byte[] levels = new byte[size];
+        int[] counts = new int[MAX_PROGRESS + 2];
+        Board board = new Board();
+        for (int i = 0; i < size; i += 1) {
+            decode(i, w, b, board);
+            levels[i] = (byte) progress(board);
+            counts[levels[i]] += 1;
+        }
+        int[] starts = new int[MAX_PROGRESS + 2];
+        for (int p = MAX_PROGRESS; p >= 0; p -= 1) {
+            starts[p] = starts[p + 1] + counts[p + 1];
+        }
+        int[] order = new int[size];
+        int[] next = starts.clone();
+        for (int i = 0; i < size; i += 1) {
+            order[next[levels[i]]] = i;
+            next[levels[i]] += 1;
+        }
+
+        for (int p = MAX_PROGRESS; p >= 0; p -= 1) {
+            IntStream.range(starts[p], starts[p] + counts[p]).parallel()
+                .forEach(j -> result[order[j]] =
+                         (short) solve(order[j], w, b, tables));
+        }
+        return result;
+    }
+
+    /** Return the entry for position I of the class of W white and B
+     *  black pieces, given the entries in TABLES of all its
+     *  successors. */
+    private static int solve(int i, int w, int b, short[][][] tables) {
+        Board board = BOARDS.get();
+        long[] moves = MOVES.get();
+        decode(i, w, b, board);
+        int n = board.getMoves(moves);
+        if (n == 0) {
+            return entry(LOSS, 0);
+        }
+        int win, loss;
+        win = Integer.MAX_VALUE;
+        loss = -1;
+        boolean draw = false;
+        for (int k = 0; k < n; k += 1) {
+            board.make(moves[k]);
+            int w1 = Integer.bitCount(board.pieces(WHITE)),
+                b1 = Integer.bitCount(board.pieces(BLACK));
+            int e = tables[w1][b1][(int) index(board)] & 0xffff;
+            board.unmake();
+            switch (result(e)) {
+            case LOSS:
+                win = Math.min(win, distance(e) + 1);
+                break;
+            case WIN:
+                loss = Math.max(loss, distance(e) + 1);
+                break;
+            case DRAW:
+                draw = true;
+                break;
+            default:
+                throw new IllegalStateException("unsolved successor");
+            }
+        }
+        if (win != Integer.MAX_VALUE) {
+            return entry(WIN, win);
+        } else if (draw) {
+            return entry(DRAW, 0);
+        } else {
+            return entry(LOSS, loss);
+        }
+    }
+
+    /** Return the progress of the position on BOARD: the sum over its
+     *  pieces of their progress, each piece's being SIDEWAYS_STEPS times
+     *  the number of rows it has advanced from its own first row, plus
+     *  the number of squares it has moved sideways in a row, as far as
+     *  the direction of its last move shows.  Every non-capturing move
+     *  increases it. */
+    static int progress(Board board) {
+        int result = 0;
+        for (int k = 0; k <= MAX_INDEX; k += 1) {
+            PieceColor p = board.get(k);
+            if (p == EMPTY) {
+                continue;
+            }
+            int c = k % SIDE, r = k / SIDE;
+            result += SIDEWAYS_STEPS * (p == WHITE ? r : SIDE - 1 - r);
+            switch (board.direction(k)) {
+            case 1:
+                result += 1 + c;
+                break;
+            case -1:
+                result += SIDE - c;
+                break;
+            default:
+                break;
+            }
+        }
+        return result;
+    }
+
+    /** Number of units of progress per row: more than the most that
+     *  sideways moves within a row can add. */
+    private static final int SIDEWAYS_STEPS = SIDE + 1;
+    /** Largest possible progress. */
+    private static final int MAX_PROGRESS =
+        2 * MAX_PIECES * SIDEWAYS_STEPS * SIDE;
+
+    /** Each thread's Board for solving positions. */
+    private static final ThreadLocal<Board> BOARDS =
+        ThreadLocal.withInitial(Board::new);
+    /** Each thread's move buffer for solving positions. */
+    private static final ThreadLocal<long[]> MOVES =
+        ThreadLocal.withInitial(() -> new long[Board.MAX_MOVES]);
+
+}
@@ -0,0 +1,178 @@
+package qirkat;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static qirkat.Tablebase.*;
+
+/** Tests of the Tablebase and TablebaseBuilder classes.
+ *  @author Tony Hsu
+ */
+public class TablebaseTest {
+
+    /** Return the name of a new temporary file, deleted on exit. */
+    private static String tempFile() throws IOException {
+        File file = File.createTempFile("qirkat", ".tb");
+        file.deleteOnExit();
+        return file.getPath();
+    }
+
+    /** Return the tablebase entry for B, found by exhaustive search,
+     *  using and adding to the results in MEMO. */
+    private static int solve(Board b, HashMap<Board, Integer> memo) {
+        Integer known = memo.get(b);
+        if (known != null) {
+            return known;
+        }
+        long[] moves = new long[Board.MAX_MOVES];
+        int n = b.getMoves(moves);
+        int result = entry(LOSS, 0);
+        for (int i = 0; i < n; i += 1) {
+            b.make(moves[i]);
+            int e = solve(b, memo);
+            b.unmake();
+            int d = distance(e) + 1;
+            if (result(e) == LOSS
+                && (result(result) != WIN || d < distance(result))) {
+                result = entry(WIN, d);
+            } else if (result(e) == WIN && result(result) == LOSS
+                       && d > distance(result)) {
+                result = entry(LOSS, d);
+            }
+        }
+        memo.put(new Board(b), result);
+        return result;
+    }
+
+    @Test
+    public void testIndex() {
+        Board b = new Board(), b1 = new Board();
+        Random rand = new Random(7);
+        for (int w = 0; w <= MAX_PIECES; w += 1) {
+            for (int k = 0; k <= MAX_PIECES; k += 1) {
+                long size = classSize(w, k);
+                for (int t = 0; t < 200; t += 1) {
+                    long i = (long) (rand.nextDouble() * size);
+                    decode(i, w, k, b);
+                    assertEquals(w,
+                        Integer.bitCount(b.pieces(PieceColor.WHITE)));
+                    assertEquals(k,
+                        Integer.bitCount(b.pieces(PieceColor.BLACK)));
+                    assertEquals(i, index(b));
+                    decode(index(b), w, k, b1);
+                    assertEquals(b, b1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAgreesWithSearch() throws IOException {
+        String name = tempFile();
+        TablebaseBuilder.build(1, name);
+        Tablebase tb = Tablebase.open(name);
+        assertEquals(1, tb.maxPieces());
+        HashMap<Board, Integer> memo = new HashMap<>();
+        Board b = new Board();
+        for (int w = 0; w <= 1; w += 1) {
+            for (int k = 0; k <= 1; k += 1) {
+                for (long i = 0; i < classSize(w, k); i += 1) {
+                    decode(i, w, k, b);
+                    assertEquals(b.toString(), solve(b, memo), tb.probe(b));
+                }
+            }
+        }
+        b.clear();
+        assertFalse(tb.covers(b));
+        assertEquals(UNKNOWN, tb.probe(b));
+    }
+
+    @Test
+    public void testSearcherPlaysPerfectly() throws IOException {
+        String name = tempFile();
+        TablebaseBuilder.build(1, name);
+        Tablebase tb = Tablebase.open(name);
+        Board b = new Board();
+        b.setPieces("----- --w-- ----- ----- -b---", PieceColor.WHITE);
+        int e = tb.probe(b);
+        assertEquals(entry(LOSS, 10), e);
+        while (distance(e) > 0) {
+            Searcher s = new Searcher(b, new TranspositionTable(1), 1);
+            s.setTablebase(tb);
+            s.setClock(System.currentTimeMillis(), 1000);
+            s.run();
+            assertTrue(b.isLegal(s.bestMove()));
+            b.make(s.bestMove());
+            int e1 = tb.probe(b);
+            assertEquals(result(e) == WIN ? LOSS : WIN, result(e1));
+            assertEquals(distance(e) - 1, distance(e1));
+            e = e1;
+        }
+    }
+
+    @Test
+    public void testTableKeepsDistances() throws IOException {
+        String name = tempFile();
+        TablebaseBuilder.build(1, name);
+        Tablebase tb = Tablebase.open(name);
+        Board b = new Board();
+        long[] moves = new long[Board.MAX_MOVES];
+        int tried = 0;
+        for (long i = 0; i < classSize(2, 1) && tried < 20; i += 997) {
+            decode(i, 2, 1, b);
+            if (b.getMoves(moves) < 2) {
+                continue;
+            }
+            TranspositionTable table = new TranspositionTable(1);
+            Searcher s = searcher(b, table, 6, tb);
+            s.run();
+            b.make(s.bestMove());
+            long reply = table.probeMove(b.key());
+            if (reply == MoveCode.NONE || !b.isLegal(reply)) {
+                continue;
+            }
+            b.make(reply);
+            if (b.getMoves(moves) < 2 || tb.covers(b)) {
+                continue;
+            }
+            Searcher warm = searcher(b, table, 4, tb);
+            warm.run();
+            Searcher fresh = searcher(b, new TranspositionTable(1), 4, tb);
+            fresh.run();
+            if (Math.abs(fresh.value()) > Searcher.TABLEBASE_WIN / 2) {
+                tried += 1;
+            }
+            assertEquals(b.toString(), fresh.value(), warm.value());
+        }
+        assertTrue(tried > 0);
+    }
+
+    /** Return a full-width Searcher for BOARD, using TABLE and TB, that
+     *  will search to DEPTH. */
+    private static Searcher searcher(Board board, TranspositionTable table,
+                                     int depth, Tablebase tb) {
+        Searcher s = new Searcher(board, table, 1);
+        s.setTablebase(tb);
+        s.setReductions(0, 0);
+        s.setFutility(0, 0);
+        s.setClock(System.currentTimeMillis(), Long.MAX_VALUE);
+        s.setMaxDepth(depth);
+        return s;
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotATablebase() throws IOException {
+        String name = tempFile();
+        try (FileWriter out = new FileWriter(name)) {
+            out.write("auto white\n");
+        }
+        Tablebase.open(name);
+    }
+
+}
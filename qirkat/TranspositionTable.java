@@ -0,0 +1,174 @@
+package qirkat;
+
+import java.util.Arrays;
+
+/** A fixed-size table of search results indexed by position key (see
+ *  Board.key()).  Entries live in three parallel long arrays (keys, packed
+ *  data, and best-move codes), so storing and probing neither allocates
+ *  nor boxes.  The table is organized in buckets of two entries: the
+ *  first keeps the deepest result seen for its bucket during the
+ *  current search, and the second is overwritten by whatever does not
+ *  qualify for the first.
+ *
+ *  Any number of threads may probe and store at once without locking.
+ *  Each entry's key is stored XORed with its data and its move, so that
+ *  an entry torn by simultaneous writes (its key from one store and its
+ *  data or move from another) no longer matches either key and simply
+ *  reads as a miss.
+ *  @author Tony Hsu
+ */
+class TranspositionTable {
+
+    /** Bound types.  An EXACT score is the minimax value of its position;
+     *  a LOWER (resp. UPPER) score is a lower (resp. upper) bound on it.
+     *  All are nonzero, so that valid packed data is never 0. */
+    static final int LOWER = 1, UPPER = 2, EXACT = 3;
+
+    /** Size of one entry, in bytes. */
+    static final int ENTRY_BYTES = 24;
+
+    /** Number of bytes in a megabyte. */
+    private static final long MEGABYTE = 1 << 20;
+
+    /** Largest supported size, in megabytes. */
+    static final int MAX_MEGABYTES = 4096;
+
+    /** A new, empty table occupying about MEGABYTES megabytes (at least
+     *  one bucket). */
+    TranspositionTable(int megabytes) {
+        megabytes = Math.max(0, Math.min(megabytes, MAX_MEGABYTES));
+        long buckets = megabytes * MEGABYTE / (2 * ENTRY_BYTES);
+        int size = 1;
+        while (2L * size <= buckets) {
+            size *= 2;
+        }
+        _mask = size - 1;
+        _keys = new long[2 * size];
+        _data = new long[2 * size];
+        _moves = new long[2 * size];
+    }
+
+    /** Remove all entries.  Not to be used while searches are in
+     *  progress. */
+    void clear() {
+        Arrays.fill(_keys, 0);
+        Arrays.fill(_data, 0);
+        Arrays.fill(_moves, 0);
+        _generation = 0;
+    }
+
+    /** Mark the beginning of a new search.  Entries stored by earlier
+     *  searches remain usable, but no longer defend their slots against
+     *  replacement.  Not to be used while searches are in progress. */
+    void newSearch() {
+        _generation = (_generation + 1) & GENERATION_MASK;
+    }
+
+    /** Return the packed data stored for the position with key KEY, or 0
+     *  if there is none.  Use score, depth, and bound to unpack a
+     *  nonzero result. */
+    long probe(long key) {
+        int slot = 2 * ((int) key & _mask);
+        long data = _data[slot];
+        if (data != 0 && (_keys[slot] ^ data ^ _moves[slot]) == key) {
+            return data;
+        }
+        data = _data[slot + 1];
+        if (data != 0
+            && (_keys[slot + 1] ^ data ^ _moves[slot + 1]) == key) {
+            return data;
+        }
+        return 0;
+    }
+
+    /** Return the code (see MoveCode) of the best move stored for the
+     *  position with key KEY, or MoveCode.NONE if there is none.  The
+     *  move is very likely, but not certain, to be legal in that
+     *  position, and should be checked before use. */
+    long probeMove(long key) {
+        int slot = 2 * ((int) key & _mask);
+        for (int i = slot; i < slot + 2; i += 1) {
+            long data = _data[i], move = _moves[i];
+            if (data != 0 && (_keys[i] ^ data ^ move) == key) {
+                return move;
+            }
+        }
+        return MoveCode.NONE;
+    }
+
+    /** Record that searching the position with key KEY to DEPTH gave
+     *  SCORE, which is of type BOUND (EXACT, LOWER, or UPPER), and that
+     *  MOVE (a move code, or MoveCode.NONE if none) was the best move
+     *  found. */
+    void store(long key, int depth, int score, int bound, long move) {
+        int slot = 2 * ((int) key & _mask);
+        long old = _data[slot];
+        long oldMove = _moves[slot];
+        long oldKey = _keys[slot] ^ old ^ oldMove;
+        long data = pack(depth, score, bound);
+        if (old == 0 || oldKey == key || depth >= depth(old)
+            || generation(old) != _generation) {
+            if (old != 0 && oldKey != key) {
+                _keys[slot + 1] = oldKey ^ old ^ oldMove;
+                _data[slot + 1] = old;
+                _moves[slot + 1] = oldMove;
+            }
+        } else {
+            slot += 1;
+        }
+        _keys[slot] = key ^ data ^ move;
+        _data[slot] = data;
+        _moves[slot] = move;
+    }
+
+    /** Return the score in packed entry DATA. */
+    static int score(long data) {
+        return (int) data;
+    }
+
+    /** Return the search depth in packed entry DATA. */
+    static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    /** Return the bound type (EXACT, LOWER, or UPPER) in packed entry
+     *  DATA. */
+    static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & BOUND_MASK;
+    }
+
+    /** Return the search generation in packed entry DATA. */
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    /** Return DEPTH, SCORE, and BOUND packed into a single long, together
+     *  with the current generation. */
+    private long pack(int depth, int score, int bound) {
+        assert 0 <= depth && depth <= DEPTH_MASK;
+        return (score & 0xffffffffL)
+            | ((long) depth << DEPTH_SHIFT)
+            | ((long) bound << BOUND_SHIFT)
+            | ((long) _generation << GENERATION_SHIFT);
+    }
+
+    /** Layout of packed data: bits 0-31 hold the score, 32-39 the depth,
+     *  40-41 the bound type, and 42-47 the generation. */
+    private static final int
+        DEPTH_SHIFT = 32, DEPTH_MASK = 0xff,
+        BOUND_SHIFT = 40, BOUND_MASK = 0x3,
+        GENERATION_SHIFT = 42, GENERATION_MASK = 0x3f;
+
+    /** Keys of the stored entries, each XORed with the entry's data
+     *  and move.
+     *  Entries 2 * B and 2 * B + 1 form bucket B. */
+    private final long[] _keys;
+    /** Packed data of the stored entries, or 0 for empty entries. */
+    private final long[] _data;
+    /** Best-move codes of the stored entries. */
+    private final long[] _moves;
+    /** Mask selecting a bucket number from a key. */
+    private final int _mask;
+    /** Generation number of the current search. */
+    private volatile int _generation;
+}
@@ -12,7 +12,13 @@ public class UnitTest {
     public static void main(String[] ignored) {
         System.exit(textui.runClasses(MoveTest.class, BoardTest.class,
                                       MoreBoardTests.class,
-                                      CommandTest.class));
+                                      CommandTest.class,
+                                      SearcherTest.class,
+                                      EvaluatorTest.class,
+                                      TablebaseTest.class,
+                                      OpeningBookTest.class,
+                                      MonteCarloTreeTest.class,
+                                      ParallelAITest.class));
     }
 
 }